@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Compara tiempo de arranque y memoria residente entre el jar normal y el build AOT + CDS.
+# Requisitos: Java 21 y haber ejecutado antes ./mvnw -Parranque-rapido package
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=target/crud-persona-0.0.1-SNAPSHOT.jar
+JAR_AOT=target/aot/crud-persona-0.0.1-SNAPSHOT.jar
+CDS=target/aot/application.jsa
+PUERTO=${PUERTO:-18080}
+REPETICIONES=${REPETICIONES:-5}
+
+medir() {
+    local nombre=$1; shift
+    local total_ms=0 total_rss=0
+    for i in $(seq 1 "$REPETICIONES"); do
+        local log
+        log=$(mktemp)
+        local inicio
+        inicio=$(date +%s%N)
+        "$@" --server.port="$PUERTO" --spring.datasource.url=jdbc:h2:mem:comparacion >"$log" 2>&1 &
+        local pid=$!
+        until grep -q "Started CrudPersonaApplication" "$log"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "La aplicación terminó antes de arrancar:"; cat "$log"; exit 1
+            fi
+            sleep 0.05
+        done
+        local fin
+        fin=$(date +%s%N)
+        local rss
+        rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+        kill "$pid"; wait "$pid" 2>/dev/null || true
+        rm -f "$log"
+        total_ms=$((total_ms + (fin - inicio) / 1000000))
+        total_rss=$((total_rss + rss))
+    done
+    printf "%-12s arranque promedio: %6d ms   RSS promedio: %6d MB\n" \
+        "$nombre" $((total_ms / REPETICIONES)) $((total_rss / REPETICIONES / 1024))
+}
+
+medir "jar" java -jar "$JAR"
+medir "aot+cds" java -XX:SharedArchiveFile="$CDS" -Dspring.aot.enabled=true -jar "$JAR_AOT"
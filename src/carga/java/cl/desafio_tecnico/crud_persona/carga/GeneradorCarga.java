@@ -0,0 +1,269 @@
+package cl.desafio_tecnico.crud_persona.carga;
+
+import cl.desafio_tecnico.crud_persona.CrudPersonaApplication;
+import cl.desafio_tecnico.crud_persona.model.Direccion;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonasSimulado;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Arnés de carga: levanta la aplicación contra el Firestore simulado y mide latencias en modo en línea y sin conexión.
+// Uso: ./mvnw -Pcarga compile exec:java -Dcarga.tasa=500 -Dcarga.duracion-segundos=30
+public class GeneradorCarga {
+    private static final int RUT_BASE = 10_000_000;
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String base;
+    private final int poblacion;
+    private final AtomicInteger siguienteRut;
+    private final ConcurrentLinkedQueue<Integer> creados = new ConcurrentLinkedQueue<>();
+
+    private GeneradorCarga(String base, int poblacion) {
+        this.base = base;
+        this.poblacion = poblacion;
+        this.siguienteRut = new AtomicInteger(RUT_BASE + poblacion);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasa = Integer.getInteger("carga.tasa", 500);
+        int duracionSegundos = Integer.getInteger("carga.duracion-segundos", 30);
+        int poblacion = Integer.getInteger("carga.personas", 1000);
+        long latenciaMs = Long.getLong("carga.latencia-ms", 5);
+        long variacionMs = Long.getLong("carga.variacion-ms", 5);
+        long sincronizacionMs = Long.getLong("carga.sincronizacion-ms", 1000);
+        long drenadoMaxSegundos = Long.getLong("carga.drenado-max-segundos", 300);
+
+        List<String> propiedades = new ArrayList<>(List.of(
+                "server.port=0",
+                "firestore.modo=simulado",
+                "firestore.simulado.latencia-ms=" + latenciaMs,
+                "firestore.simulado.variacion-ms=" + variacionMs,
+                "sincronizacion.intervalo-ms=" + sincronizacionMs,
+                "spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1"));
+        String nivelLog = System.getProperty("carga.nivel-log");
+        if (nivelLog != null) {
+            propiedades.add("logging.level.cl.desafio_tecnico=" + nivelLog);
+        }
+        if (Boolean.getBoolean("carga.escritura-diferida")) {
+            propiedades.add("escritura-diferida.habilitada=true");
+        }
+        String perfilLog = System.getProperty("carga.perfil-log");
+        if (perfilLog != null) {
+            propiedades.add("spring.profiles.active=" + perfilLog);
+        }
+
+        // Como argumentos de línea de comandos, para que prevalezcan sobre application.properties
+        List<String> argumentos = new ArrayList<>(propiedades.stream().map(propiedad -> "--" + propiedad).toList());
+        argumentos.addAll(Arrays.asList(args));
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(CrudPersonaApplication.class)
+                .run(argumentos.toArray(new String[0]));
+        RepositorioPersonasSimulado simulado = contexto.getBean(RepositorioPersonasSimulado.class);
+        RepositorioOperacionesPendientes pendientes = contexto.getBean(RepositorioOperacionesPendientes.class);
+        String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+
+        GeneradorCarga generador = new GeneradorCarga(base, poblacion);
+        generador.poblar(simulado);
+
+        System.out.printf("%nCarga: %d req/s durante %d s por fase, %d personas, latencia simulada %d±%d ms%n%n",
+                tasa, duracionSegundos, poblacion, latenciaMs, variacionMs);
+
+        generador.ejecutarFase("en linea", tasa, duracionSegundos).imprimir();
+
+        simulado.setCaido(true);
+        long pendientesAntes = sinAplicar(pendientes);
+        generador.ejecutarFase("sin conexion", tasa, duracionSegundos).imprimir();
+        long pendientesDespues = sinAplicar(pendientes);
+        System.out.printf("  outbox: %d -> %d operaciones sin aplicar (+%d)%n", pendientesAntes, pendientesDespues,
+                pendientesDespues - pendientesAntes);
+
+        simulado.setCaido(false);
+        long inicioDrenado = System.nanoTime();
+        long limite = inicioDrenado + TimeUnit.SECONDS.toNanos(drenadoMaxSegundos);
+        long restantes;
+        while ((restantes = sinAplicar(pendientes)) > 0 && System.nanoTime() < limite) {
+            Thread.sleep(100);
+        }
+        long drenadoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioDrenado);
+        if (restantes == 0) {
+            System.out.printf("  drenado del outbox tras el fin de la caída: %d ms%n", drenadoMs);
+        } else {
+            System.out.printf("  drenado incompleto tras %d ms: %d operaciones sin aplicar%n", drenadoMs, restantes);
+        }
+
+        contexto.close();
+        System.exit(0);
+    }
+
+    // Las actualizaciones diferidas (DEFERRED) también esperan su escritura: el outbox no está drenado hasta que se apliquen
+    private static long sinAplicar(RepositorioOperacionesPendientes pendientes) {
+        return pendientes.countByEstado(EstadoOperacion.PENDING) + pendientes.countByEstado(EstadoOperacion.DEFERRED);
+    }
+
+    private void poblar(RepositorioPersonasSimulado simulado) throws Exception {
+        List<ApiFuture<Void>> altas = new ArrayList<>();
+        for (int i = 0; i < poblacion; i++) {
+            altas.add(simulado.crear(persona(RUT_BASE + i)));
+        }
+        for (ApiFuture<Void> alta : altas) {
+            alta.get();
+        }
+    }
+
+    private Resultado ejecutarFase(String nombre, int tasa, int duracionSegundos) throws Exception {
+        Resultado resultado = new Resultado(nombre);
+        List<CompletableFuture<?>> enVuelo = Collections.synchronizedList(new ArrayList<>());
+        ScheduledExecutorService reloj = Executors.newSingleThreadScheduledExecutor();
+        long periodoNs = TimeUnit.SECONDS.toNanos(1) / tasa;
+        long inicio = System.nanoTime();
+        ScheduledFuture<?> tarea = reloj.scheduleAtFixedRate(
+                () -> enVuelo.add(enviar(siguienteSolicitud(), resultado)), 0, periodoNs, TimeUnit.NANOSECONDS);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(duracionSegundos));
+        tarea.cancel(false);
+        reloj.shutdown();
+        reloj.awaitTermination(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(enVuelo.toArray(new CompletableFuture<?>[0])).join();
+        resultado.duracionNs = System.nanoTime() - inicio;
+        return resultado;
+    }
+
+    // Un POST solo deja su RUT disponible para DELETE cuando terminó con éxito (200, o 202 si quedó en el outbox)
+    private record Solicitud(HttpRequest http, Integer alta) {
+        Solicitud(HttpRequest http) {
+            this(http, null);
+        }
+    }
+
+    private CompletableFuture<?> enviar(Solicitud solicitud, Resultado resultado) {
+        long inicio = System.nanoTime();
+        return cliente.sendAsync(solicitud.http(), HttpResponse.BodyHandlers.discarding())
+                .handle((respuesta, error) -> {
+                    int estado = respuesta != null ? respuesta.statusCode() : -1;
+                    resultado.registrar(estado, System.nanoTime() - inicio);
+                    if (solicitud.alta() != null && estado >= 200 && estado < 300) {
+                        creados.add(solicitud.alta());
+                    }
+                    return null;
+                });
+    }
+
+    // Mezcla: 60% GET por RUT, 2% GET listado, 20% PUT, 13% POST, 5% DELETE de personas cuya creación ya respondió
+    private Solicitud siguienteSolicitud() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        int dado = aleatorio.nextInt(100);
+        int existente = RUT_BASE + aleatorio.nextInt(poblacion);
+        if (dado < 60) {
+            return new Solicitud(solicitud("/personas/" + rut(existente)).GET().build());
+        }
+        if (dado < 62) {
+            return new Solicitud(solicitud("/personas").GET().build());
+        }
+        if (dado < 82) {
+            return new Solicitud(solicitud("/personas/" + rut(existente))
+                    .PUT(HttpRequest.BodyPublishers.ofString(json(existente)))
+                    .header("Content-Type", "application/json").build());
+        }
+        if (dado < 95) {
+            int nuevo = siguienteRut.getAndIncrement();
+            return new Solicitud(solicitud("/personas")
+                    .POST(HttpRequest.BodyPublishers.ofString(json(nuevo)))
+                    .header("Content-Type", "application/json").build(), nuevo);
+        }
+        Integer creado = creados.poll();
+        if (creado == null) {
+            return new Solicitud(solicitud("/personas/" + rut(existente)).GET().build());
+        }
+        return new Solicitud(solicitud("/personas/" + rut(creado)).DELETE().build());
+    }
+
+    private HttpRequest.Builder solicitud(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofSeconds(30));
+    }
+
+    private static String json(int cuerpo) {
+        return "{\"rut\":\"" + rut(cuerpo) + "\",\"nombre\":\"Nombre" + cuerpo + "\",\"apellido\":\"Carga\","
+                + "\"fechaNacimiento\":\"01-01-1990\","
+                + "\"direccion\":{\"calle\":\"Viva 123\",\"comuna\":\"Santiago\",\"region\":\"Metropolitana\"}}";
+    }
+
+    private static Persona persona(int cuerpo) {
+        return new Persona(rut(cuerpo), "Nombre" + cuerpo, "Carga", Timestamp.now(),
+                new Direccion("Viva 123", "Santiago", "Metropolitana"));
+    }
+
+    static String rut(int cuerpo) {
+        return new Rut(cuerpo).toString();
+    }
+
+    private static class Resultado {
+        private final String nombre;
+        private final Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+        private long[] latencias = new long[1 << 16];
+        private int total;
+        private long duracionNs;
+
+        Resultado(String nombre) {
+            this.nombre = nombre;
+        }
+
+        void registrar(int estado, long latenciaNs) {
+            estados.computeIfAbsent(estado, e -> new LongAdder()).increment();
+            synchronized (this) {
+                if (total == latencias.length) {
+                    latencias = Arrays.copyOf(latencias, total * 2);
+                }
+                latencias[total++] = latenciaNs;
+            }
+        }
+
+        synchronized void imprimir() {
+            long[] ordenadas = Arrays.copyOf(latencias, total);
+            Arrays.sort(ordenadas);
+            double segundos = duracionNs / 1e9;
+            System.out.printf("[%s] %d solicitudes en %.1f s - %.0f req/s%n", nombre, total, segundos, total / segundos);
+            System.out.printf("  latencia ms: p50=%.2f p95=%.2f p99=%.2f max=%.2f%n",
+                    percentil(ordenadas, 50), percentil(ordenadas, 95), percentil(ordenadas, 99),
+                    ordenadas.length == 0 ? 0 : ordenadas[ordenadas.length - 1] / 1e6);
+            Map<Integer, Long> resumen = new TreeMap<>();
+            estados.forEach((estado, cantidad) -> resumen.put(estado, cantidad.sum()));
+            System.out.printf("  estados HTTP: %s%n", resumen);
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)] / 1e6;
+        }
+    }
+}
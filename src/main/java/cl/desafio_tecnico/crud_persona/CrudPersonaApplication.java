@@ -1,19 +1,32 @@
 package cl.desafio_tecnico.crud_persona;
 
+import cl.desafio_tecnico.crud_persona.config.VerificadorModoAot;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableScheduling
 @EnableJpaRepositories("cl.desafio_tecnico.crud_persona.repository")
 @EntityScan("cl.desafio_tecnico.crud_persona.model")
 public class CrudPersonaApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(CrudPersonaApplication.class, args);
+		SpringApplication aplicacion = new SpringApplication(CrudPersonaApplication.class);
+		aplicacion.addListeners(new VerificadorModoAot());
+		if (esModoLineaDeComandos(args)) {
+			aplicacion.setAdditionalProfiles("cli");
+		}
+		aplicacion.run(args);
+	}
+
+	static boolean esModoLineaDeComandos(String[] args) {
+		for (String arg : args) {
+			if (arg.startsWith("--exportar.destino=") || arg.startsWith("--migrar-ruts=")) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 }
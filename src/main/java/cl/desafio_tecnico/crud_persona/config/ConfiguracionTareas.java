@@ -0,0 +1,12 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas @Scheduled (sincronización del outbox, reconexión, purgas); los modos de línea de comandos las desactivan
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "tareas-programadas.habilitadas", havingValue = "true", matchIfMissing = true)
+public class ConfiguracionTareas {
+}
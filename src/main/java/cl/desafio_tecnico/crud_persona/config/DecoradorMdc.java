@@ -0,0 +1,44 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Lleva el MDC del hilo que programa una tarea al hilo que la ejecuta, para que las líneas asíncronas conserven el
+// idSolicitud. Spring Boot lo aplica a los hilos de @Scheduled; esas tareas no vienen de una solicitud y reciben un
+// id propio por ejecución ("tarea-...").
+@Component
+public class DecoradorMdc implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable tarea) {
+        return envolver(tarea);
+    }
+
+    public static Runnable envolver(Runnable tarea) {
+        Map<String, String> contexto = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> anterior = MDC.getCopyOfContextMap();
+            if (contexto != null) {
+                MDC.setContextMap(contexto);
+            } else {
+                MDC.clear();
+            }
+            if (MDC.get(FiltroCorrelacion.CLAVE_MDC) == null) {
+                MDC.put(FiltroCorrelacion.CLAVE_MDC, "tarea-" + UUID.randomUUID().toString().substring(0, 8));
+            }
+            try {
+                tarea.run();
+            } finally {
+                if (anterior != null) {
+                    MDC.setContextMap(anterior);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
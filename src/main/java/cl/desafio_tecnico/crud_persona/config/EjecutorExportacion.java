@@ -0,0 +1,54 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import cl.desafio_tecnico.crud_persona.service.ServicioExportacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+// Modo línea de comandos: java -jar crud-persona.jar --exportar.destino=/ruta [--exportar.formato=csv]
+// Exporta la colección completa y termina el proceso; si el destino ya tiene un punto de control, lo retoma.
+@Component
+@ConditionalOnProperty(name = "exportar.destino")
+public class EjecutorExportacion implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(EjecutorExportacion.class);
+
+    @Autowired
+    private ServicioExportacion servicioExportacion;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Value("${exportar.destino}")
+    private String destino;
+
+    @Value("${exportar.formato:ndjson}")
+    private String formato;
+
+    @Value("${exportar.particiones:16}")
+    private int particiones;
+
+    @Value("${exportar.hilos:8}")
+    private int hilos;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int codigoSalida = 0;
+        try {
+            servicioExportacion.exportar(Path.of(destino), formato, particiones, hilos);
+        } catch (Exception e) {
+            logger.error("Exportación fallida, se puede retomar con el mismo destino: {}", e.getMessage());
+            codigoSalida = 1;
+        }
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
@@ -0,0 +1,39 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import cl.desafio_tecnico.crud_persona.service.ServicioMigracionRuts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+// Modo línea de comandos: java -jar crud-persona.jar --migrar-ruts=true
+// Renombra los documentos con id de RUT no canónico y termina el proceso; sale con 2 si alguno quedó sin migrar.
+@Component
+@ConditionalOnProperty(name = "migrar-ruts", havingValue = "true")
+public class EjecutorMigracionRuts implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(EjecutorMigracionRuts.class);
+
+    @Autowired
+    private ServicioMigracionRuts servicioMigracionRuts;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int codigoSalida;
+        try {
+            codigoSalida = servicioMigracionRuts.migrar() == 0 ? 0 : 2;
+        } catch (Exception e) {
+            logger.error("Migración de RUT interrumpida, se puede relanzar: {}", e.getMessage());
+            codigoSalida = 1;
+        }
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
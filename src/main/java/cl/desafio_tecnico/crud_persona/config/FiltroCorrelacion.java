@@ -0,0 +1,39 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+// Propaga X-Request-Id (o genera uno) al MDC para correlacionar todas las líneas de log de una solicitud
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FiltroCorrelacion extends OncePerRequestFilter {
+    public static final String CABECERA = "X-Request-Id";
+    public static final String CLAVE_MDC = "idSolicitud";
+    private static final int LARGO_MAXIMO = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idSolicitud = request.getHeader(CABECERA);
+        if (idSolicitud == null || idSolicitud.isBlank() || idSolicitud.length() > LARGO_MAXIMO) {
+            idSolicitud = UUID.randomUUID().toString();
+        }
+        MDC.put(CLAVE_MDC, idSolicitud);
+        response.setHeader(CABECERA, idSolicitud);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(CLAVE_MDC);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Limita las líneas INFO/DEBUG repetitivas del camino caliente: cada mensaje (por plantilla) se emite como máximo
+// maximoPorSegundo veces por segundo. WARN y ERROR nunca se descartan. Se configura en logback-spring.xml.
+public class FiltroMuestreoLogs extends TurboFilter {
+
+    private String prefijo = "cl.desafio_tecnico";
+    private int maximoPorSegundo = 20;
+
+    private final Map<String, Ventana> ventanas = new ConcurrentHashMap<>();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(prefijo)) {
+            return FilterReply.NEUTRAL;
+        }
+        // Sin isEnabledFor(): volvería a invocar los turbo filtros
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        long segundo = System.nanoTime() / 1_000_000_000L;
+        if (ventanas.computeIfAbsent(format, f -> new Ventana()).permitir(segundo, maximoPorSegundo)) {
+            return FilterReply.NEUTRAL;
+        }
+        descartadas.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+
+    public void setPrefijo(String prefijo) {
+        this.prefijo = prefijo;
+    }
+
+    public void setMaximoPorSegundo(int maximoPorSegundo) {
+        this.maximoPorSegundo = maximoPorSegundo;
+    }
+
+    private static final class Ventana {
+        private long segundo;
+        private int emitidas;
+
+        synchronized boolean permitir(long segundoActual, int maximo) {
+            if (segundoActual != segundo) {
+                segundo = segundoActual;
+                emitidas = 0;
+            }
+            return ++emitidas <= maximo;
+        }
+    }
+}
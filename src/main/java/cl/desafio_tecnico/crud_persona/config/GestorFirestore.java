@@ -0,0 +1,186 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import cl.desafio_tecnico.crud_persona.util.UtilidadesFirestore;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.ServiceOptions;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.v1.FirestoreSettings;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.cloud.FirestoreClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Único dueño del cliente Firestore: se conecta una vez al arrancar, precalienta los canales gRPC y reconecta en segundo plano
+@Component
+@ConditionalOnProperty(name = "firestore.modo", havingValue = "firestore", matchIfMissing = true)
+public class GestorFirestore {
+    private static final Logger logger = LoggerFactory.getLogger(GestorFirestore.class);
+
+    @Value("${firestore.credenciales:serviceAccountKey1.json}")
+    private String recursoCredenciales;
+
+    @Value("${firestore.canales:4}")
+    private int canales;
+
+    @Value("${firestore.keepalive-segundos:30}")
+    private long keepAliveSegundos;
+
+    @Value("${firestore.keepalive-timeout-segundos:10}")
+    private long keepAliveTimeoutSegundos;
+
+    @Value("${firestore.plazo-rpc-ms:5000}")
+    private long plazoRpcMs;
+
+    @Value("${firestore.plazo-escritura-ms:5000}")
+    private long plazoEscrituraMs;
+
+    @Value("${firestore.plazo-sondeo-ms:3000}")
+    private long plazoSondeoMs;
+
+    private volatile FirebaseApp firebaseApp;
+    private volatile Firestore firestore;
+    private volatile boolean disponible = false;
+    // Sin archivo de credenciales no hay con qué conectar: se deja de reintentar hasta reiniciar la aplicación
+    private volatile boolean sinCredenciales = false;
+
+    @PostConstruct
+    public void iniciar() {
+        conectar();
+    }
+
+    public Firestore obtener() {
+        return disponible ? firestore : null;
+    }
+
+    public boolean estaDisponible() {
+        return disponible;
+    }
+
+    public void reportarError(Throwable error) {
+        StatusCode.Code codigo = UtilidadesFirestore.codigoError(error);
+        if (codigo == StatusCode.Code.UNAVAILABLE || codigo == StatusCode.Code.DEADLINE_EXCEEDED) {
+            if (disponible) {
+                logger.warn("Firestore respondió {} - Pasando a modo offline hasta la próxima verificación", codigo);
+            }
+            disponible = false;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${firestore.reconexion-ms:15000}", fixedDelayString = "${firestore.reconexion-ms:15000}")
+    public void verificar() {
+        if (sinCredenciales) {
+            return;
+        }
+        if (firestore == null) {
+            conectar();
+            return;
+        }
+        boolean estabaDisponible = disponible;
+        disponible = sondear(1);
+        if (disponible && !estabaDisponible) {
+            logger.info("Conexión con Firestore restablecida");
+        } else if (!disponible && estabaDisponible) {
+            logger.warn("Firestore no responde - Operando en modo offline");
+        }
+    }
+
+    private synchronized void conectar() {
+        if (firestore != null) {
+            return;
+        }
+        try (InputStream serviceAccount = this.getClass().getClassLoader().getResourceAsStream(recursoCredenciales)) {
+            if (serviceAccount == null) {
+                logger.warn("Archivo de credenciales {} no encontrado en recursos. Operando en modo offline sin reintentar la conexión.", recursoCredenciales);
+                sinCredenciales = true;
+                return;
+            }
+            // Una escritura que vence su plazo pasa al outbox y se reaplica: el SDK no debe seguir reintentándola
+            // por su cuenta después de eso, o la copia tardía podría pisar una escritura posterior del mismo RUT
+            long plazoSdkMs = Math.min(plazoRpcMs, plazoEscrituraMs);
+            if (plazoSdkMs < plazoRpcMs) {
+                logger.warn("firestore.plazo-rpc-ms ({} ms) supera firestore.plazo-escritura-ms - Se usa {} ms", plazoRpcMs, plazoSdkMs);
+            }
+            FirestoreOptions opcionesFirestore = FirestoreOptions.newBuilder()
+                    .setChannelProvider(FirestoreSettings.defaultGrpcTransportProviderBuilder()
+                            .setChannelPoolSettings(ChannelPoolSettings.staticallySized(canales))
+                            .setKeepAliveTimeDuration(Duration.ofSeconds(keepAliveSegundos))
+                            .setKeepAliveTimeoutDuration(Duration.ofSeconds(keepAliveTimeoutSegundos))
+                            .setKeepAliveWithoutCalls(true)
+                            .build())
+                    .setRetrySettings(ServiceOptions.getDefaultRetrySettings().toBuilder()
+                            .setInitialRpcTimeoutDuration(Duration.ofMillis(plazoSdkMs))
+                            .setMaxRpcTimeoutDuration(Duration.ofMillis(plazoSdkMs))
+                            .setTotalTimeoutDuration(Duration.ofMillis(plazoSdkMs))
+                            .build())
+                    .build();
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                    .setFirestoreOptions(opcionesFirestore)
+                    .build();
+
+            if (FirebaseApp.getApps().isEmpty()) {
+                firebaseApp = FirebaseApp.initializeApp(options);
+            } else {
+                firebaseApp = FirebaseApp.getApps().get(0);
+            }
+            firestore = FirestoreClient.getFirestore(firebaseApp);
+            disponible = sondear(canales);
+            logger.info("Firestore inicializado con {} canales gRPC - Disponible: {}", canales, disponible);
+        } catch (IOException e) {
+            logger.error("No se pudo inicializar Firestore: {}", e.getMessage());
+        }
+    }
+
+    // Lanza una lectura por canal para abrir las conexiones antes de la primera solicitud
+    private boolean sondear(int lecturas) {
+        List<ApiFuture<DocumentSnapshot>> sondeos = new ArrayList<>();
+        for (int i = 0; i < lecturas; i++) {
+            sondeos.add(firestore.collection("test").document("test").get());
+        }
+        try {
+            for (ApiFuture<DocumentSnapshot> sondeo : sondeos) {
+                sondeo.get(plazoSondeoMs, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.info("Sondeo de Firestore fallido: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws Exception {
+        disponible = false;
+        if (firestore != null) {
+            firestore.close();
+            firestore = null;
+        }
+        // Sin esto la FirebaseApp queda registrada y un refresco del contexto reutilizaría la anterior, ya cerrada
+        if (firebaseApp != null) {
+            firebaseApp.delete();
+            firebaseApp = null;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package cl.desafio_tecnico.crud_persona.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.cloud.Timestamp;
 import lombok.SneakyThrows;
 import org.springframework.context.annotation.Bean;
@@ -32,6 +34,9 @@ public class JacksonConfig {
             }
         });
         objectMapper.registerModule(module);
+        // Instant en EstadoOperacionDTO (respuestas 202 y /operaciones) como texto ISO-8601
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         return objectMapper;
     }
@@ -1,6 +1,8 @@
 package cl.desafio_tecnico.crud_persona.config;
 
+import cl.desafio_tecnico.crud_persona.exception.ExcepcionClaveIdempotenciaReutilizada;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionFirestoreNoDisponible;
+import cl.desafio_tecnico.crud_persona.exception.ExcepcionIdempotenciaEnCurso;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionRutDuplicado;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionRutInmutable;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
@@ -8,6 +10,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -15,15 +19,23 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.io.IOException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 public class ManejadorExcepcionesGlobal {
     private static final Logger logger = LoggerFactory.getLogger(ManejadorExcepcionesGlobal.class);
 
+    @Value("${firestore.reconexion-ms:15000}")
+    private long reconexionMs;
+
+    // Solo las lecturas llegan aquí (las escrituras sin conexión responden 202 con su operación): no hay nada que
+    // consultar después, así que el cliente debe reintentar cuando vuelva a verificarse la conexión
     @ExceptionHandler(ExcepcionFirestoreNoDisponible.class)
     public ResponseEntity<String> manejarFirestoreNoDisponible(ExcepcionFirestoreNoDisponible e) {
         logger.info("Firestore no disponible: {}", e.getMessage());
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (reconexionMs + 999) / 1000)))
+                .body(e.getMessage());
     }
 
     @ExceptionHandler(ExcepcionRutDuplicado.class)
@@ -32,6 +44,18 @@ public class ManejadorExcepcionesGlobal {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     }
 
+    @ExceptionHandler(ExcepcionClaveIdempotenciaReutilizada.class)
+    public ResponseEntity<String> manejarClaveIdempotenciaReutilizada(ExcepcionClaveIdempotenciaReutilizada e) {
+        logger.info("Idempotency-Key reutilizada: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExcepcionIdempotenciaEnCurso.class)
+    public ResponseEntity<String> manejarIdempotenciaEnCurso(ExcepcionIdempotenciaEnCurso e) {
+        logger.info("Solicitud idempotente aún en curso: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<String> manejarValidacion(ConstraintViolationException e) {
         logger.info("Datos de entrada inválidos: {}", e.getMessage());
@@ -62,6 +86,12 @@ public class ManejadorExcepcionesGlobal {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al ejecutar la operación en Firestore");
     }
 
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> manejarTimeoutException(TimeoutException e) {
+        logger.warn("Firestore no respondió dentro del plazo");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Firestore no respondió dentro del plazo");
+    }
+
     @ExceptionHandler(InterruptedException.class)
     public ResponseEntity<String> manejarInterruptedException(InterruptedException e) {
         logger.error("La sincronización fue interrumpida: {}", e.getMessage());
@@ -0,0 +1,47 @@
+package cl.desafio_tecnico.crud_persona.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Spring AOT fija al compilar los @ConditionalOnProperty y los perfiles: con el build AOT estas opciones se ignorarían
+// sin aviso, así que el arranque falla antes de crear el contexto. Los modos afectados se ejecutan con el jar normal.
+public class VerificadorModoAot implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent evento) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> incompatibles = incompatibles(evento.getEnvironment());
+        if (!incompatibles.isEmpty()) {
+            throw new IllegalStateException("Opciones no soportadas con el build AOT (spring.aot.enabled=true): "
+                    + String.join(", ", incompatibles) + ". Ejecute el jar normal sin -Dspring.aot.enabled=true.");
+        }
+    }
+
+    private static List<String> incompatibles(ConfigurableEnvironment entorno) {
+        List<String> incompatibles = new ArrayList<>();
+        if (!"firestore".equals(entorno.getProperty("firestore.modo", "firestore"))) {
+            incompatibles.add("firestore.modo=" + entorno.getProperty("firestore.modo"));
+        }
+        if (entorno.containsProperty("exportar.destino")) {
+            incompatibles.add("exportar.destino");
+        }
+        if (entorno.getProperty("migrar-ruts", Boolean.class, false)) {
+            incompatibles.add("migrar-ruts=true");
+        }
+        if (!entorno.getProperty("tareas-programadas.habilitadas", Boolean.class, true)) {
+            incompatibles.add("tareas-programadas.habilitadas=false");
+        }
+        // El perfil cli cambia el tipo de aplicación (sin servidor web), que el contexto AOT ya tiene resuelto
+        if (entorno.matchesProfiles("cli")) {
+            incompatibles.add("perfil cli");
+        }
+        return incompatibles;
+    }
+}
@@ -0,0 +1,62 @@
+package cl.desafio_tecnico.crud_persona.controller;
+
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
+import cl.desafio_tecnico.crud_persona.service.ServicioOperaciones;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/operaciones")
+public class ControladorOperaciones {
+
+    @Autowired
+    private ServicioOperaciones servicioOperaciones;
+
+    @Operation(summary = "Consultar una operación pendiente",
+            description = "Devuelve el estado (PENDING, APPLIED, FAILED) de una escritura aceptada con 202. Con 'esperar' la respuesta se retiene hasta que la operación se aplique o falle, o hasta cumplir ese plazo en segundos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado de la operación",
+                    content = @Content(schema = @Schema(implementation = EstadoOperacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Operación no encontrada",
+                    content = @Content(examples = @ExampleObject(value = "\"Operación no encontrada\"")))
+    })
+    @GetMapping("/{id}")
+    public DeferredResult<EstadoOperacionDTO> obtenerOperacion(@PathVariable Long id,
+                                                               @Parameter(description = "Segundos a esperar mientras siga PENDING")
+                                                               @RequestParam(value = "esperar", defaultValue = "0") long esperar) {
+        return servicioOperaciones.esperar(id, esperar);
+    }
+
+    @Operation(summary = "Listar la cola de fallidas",
+            description = "Operaciones que agotaron sus reintentos en el sincronizador o que no pueden aplicarse, con el último error. No incluye las ya reintentadas.")
+    @ApiResponse(responseCode = "200", description = "Operaciones fallidas, de la más antigua a la más reciente")
+    @GetMapping("/fallidas")
+    public List<EstadoOperacionDTO> listarFallidas(@Parameter(description = "Cantidad máxima a devolver (hasta 500)")
+                                                   @RequestParam(value = "limite", defaultValue = "100") int limite) {
+        return servicioOperaciones.listarFallidas(limite);
+    }
+
+    @Operation(summary = "Reintentar una operación fallida",
+            description = "Devuelve la operación al outbox como una nueva operación PENDING con los intentos en cero. Repetir la llamada no la duplica.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Operación devuelta al outbox",
+                    content = @Content(schema = @Schema(implementation = EstadoOperacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Operación fallida no encontrada",
+                    content = @Content(examples = @ExampleObject(value = "\"Operación fallida no encontrada\"")))
+    })
+    @PostMapping("/fallidas/{id}/reintentar")
+    public ResponseEntity<EstadoOperacionDTO> reintentarFallida(@PathVariable Long id) {
+        return ServicioOperaciones.aceptada(servicioOperaciones.reintentar(id));
+    }
+}
@@ -1,9 +1,13 @@
 package cl.desafio_tecnico.crud_persona.controller;
 
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
 import cl.desafio_tecnico.crud_persona.dto.PersonaResponseDTO;
+import cl.desafio_tecnico.crud_persona.dto.ResultadoEscritura;
 import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.service.ServicioIdempotencia;
+import cl.desafio_tecnico.crud_persona.service.ServicioOperaciones;
 import cl.desafio_tecnico.crud_persona.service.ServicioPersonas;
-import cl.desafio_tecnico.crud_persona.validator.ValidadorRut;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -29,36 +33,63 @@ public class ControladorPersonas {
     @Autowired
     private ServicioPersonas servicioPersonas;
 
+    @Autowired
+    private ServicioIdempotencia servicioIdempotencia;
+
     @Autowired
     private Validator validator;
 
-    private final ValidadorRut validadorRut = new ValidadorRut();
+    // El RUT se parsea una sola vez aquí; hacia adentro viaja como Rut y como id de documento en forma canónica
+    private Rut parsearRut(String texto) {
+        Rut rut = Rut.parsear(texto);
+        if (rut == null) {
+            logger.info("RUT inválido detectado: {}", texto);
+            throw new jakarta.validation.ConstraintViolationException("RUT inválido", null);
+        }
+        return rut;
+    }
+
+    private ResponseEntity<?> responder(ResultadoEscritura resultado) {
+        return responder(resultado, resultado.getPersona());
+    }
+
+    private ResponseEntity<?> responder(ResultadoEscritura resultado, Object cuerpo) {
+        if (resultado.isPendiente()) {
+            return ServicioOperaciones.aceptada(resultado.getOperacion());
+        }
+        return ResponseEntity.ok(cuerpo);
+    }
 
     @Operation(summary = "Crear una nueva persona", description = "Crea una persona en la base de datos con RUT único como identificador.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Persona creada con éxito",
                     content = @Content(schema = @Schema(implementation = PersonaResponseDTO.class))),
-            @ApiResponse(responseCode = "202", description = "Operación guardada temporalmente debido a indisponibilidad de Firestore",
-                    content = @Content(examples = @ExampleObject(value = "\"Operación guardada temporalmente\""))),
+            @ApiResponse(responseCode = "202", description = "Operación guardada en el outbox por indisponibilidad de Firestore; su estado se consulta en la cabecera Location (/operaciones/{id})",
+                    content = @Content(schema = @Schema(implementation = EstadoOperacionDTO.class))),
             @ApiResponse(responseCode = "409", description = "El RUT ya está registrado o es inválido",
                     content = @Content(examples = @ExampleObject(value = "\"El RUT ya está registrado\""))),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content(examples = @ExampleObject(value = "\"Error al procesar la solicitud\"")))
     })
     @PostMapping
-    public ResponseEntity<PersonaResponseDTO> crearPersona(@RequestBody Persona persona) throws Exception {
+    public ResponseEntity<?> crearPersona(@RequestBody Persona persona,
+                                          @RequestHeader(value = ServicioIdempotencia.CABECERA, required = false) String claveIdempotencia) throws Exception {
         Set<ConstraintViolation<Persona>> violations = validator.validate(persona);
         if (!violations.isEmpty()) {
             logger.info("Datos de entrada inválidos para crear persona: {}", violations);
             throw new jakarta.validation.ConstraintViolationException(violations);
         }
-        return ResponseEntity.ok(servicioPersonas.crearPersona(persona));
+        persona.setRut(parsearRut(persona.getRut()).toString());
+        return servicioIdempotencia.ejecutar(claveIdempotencia, "POST /personas", persona, PersonaResponseDTO.class,
+                () -> responder(servicioPersonas.crearPersona(persona)));
     }
 
     @Operation(summary = "Obtener todas las personas", description = "Devuelve la lista completa de personas almacenadas.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de personas obtenida con éxito",
                     content = @Content(schema = @Schema(implementation = PersonaResponseDTO.class))),
+            @ApiResponse(responseCode = "503", description = "Firestore no disponible; reintentar tras los segundos indicados en la cabecera Retry-After",
+                    content = @Content(examples = @ExampleObject(value = "\"Firestore no disponible, reintente más tarde\""))),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content(examples = @ExampleObject(value = "\"Error al procesar la solicitud\"")))
     })
@@ -75,15 +106,14 @@ public class ControladorPersonas {
                     content = @Content(examples = @ExampleObject(value = "\"Persona no encontrada\""))),
             @ApiResponse(responseCode = "409", description = "RUT inválido",
                     content = @Content(examples = @ExampleObject(value = "\"RUT inválido\""))),
+            @ApiResponse(responseCode = "503", description = "Firestore no disponible; reintentar tras los segundos indicados en la cabecera Retry-After",
+                    content = @Content(examples = @ExampleObject(value = "\"Firestore no disponible, reintente más tarde\""))),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content(examples = @ExampleObject(value = "\"Error al procesar la solicitud\"")))
     })
     @GetMapping("/{rut}")
-    public ResponseEntity<PersonaResponseDTO> obtenerPersona(@PathVariable String rut) throws Exception {
-        if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido detectado: {}", rut);
-            throw new jakarta.validation.ConstraintViolationException("RUT inválido", null);
-        }
+    public ResponseEntity<PersonaResponseDTO> obtenerPersona(@PathVariable("rut") String texto) throws Exception {
+        Rut rut = parsearRut(texto);
         PersonaResponseDTO persona = servicioPersonas.obtenerPersonaPorRut(rut);
         if (persona == null) {
             logger.info("Persona no encontrada para RUT: {}", rut);
@@ -96,8 +126,8 @@ public class ControladorPersonas {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Persona actualizada con éxito",
                     content = @Content(schema = @Schema(implementation = PersonaResponseDTO.class))),
-            @ApiResponse(responseCode = "202", description = "Operación guardada temporalmente debido a indisponibilidad de Firestore",
-                    content = @Content(examples = @ExampleObject(value = "\"Operación guardada temporalmente\""))),
+            @ApiResponse(responseCode = "202", description = "Operación guardada en el outbox por indisponibilidad de Firestore; su estado se consulta en la cabecera Location (/operaciones/{id})",
+                    content = @Content(schema = @Schema(implementation = EstadoOperacionDTO.class))),
             @ApiResponse(responseCode = "409", description = "El RUT ya está registrado o es inválido",
                     content = @Content(examples = @ExampleObject(value = "\"El RUT ya está registrado\""))),
             @ApiResponse(responseCode = "404", description = "Persona no encontrada",
@@ -106,25 +136,25 @@ public class ControladorPersonas {
                     content = @Content(examples = @ExampleObject(value = "\"Error al procesar la solicitud\"")))
     })
     @PutMapping("/{rut}")
-    public ResponseEntity<PersonaResponseDTO> actualizarPersona(@PathVariable String rut, @RequestBody Persona persona) throws Exception {
+    public ResponseEntity<?> actualizarPersona(@PathVariable("rut") String texto, @RequestBody Persona persona,
+                                               @RequestHeader(value = ServicioIdempotencia.CABECERA, required = false) String claveIdempotencia) throws Exception {
         Set<ConstraintViolation<Persona>> violations = validator.validate(persona);
         if (!violations.isEmpty()) {
             logger.info("Datos de entrada inválidos para actualizar persona: {}", violations);
             throw new jakarta.validation.ConstraintViolationException(violations);
         }
-        if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido detectado: {}", rut);
-            throw new jakarta.validation.ConstraintViolationException("RUT inválido", null);
-        }
-        return ResponseEntity.ok(servicioPersonas.actualizarPersona(rut, persona));
+        Rut rut = parsearRut(texto);
+        persona.setRut(parsearRut(persona.getRut()).toString());
+        return servicioIdempotencia.ejecutar(claveIdempotencia, "PUT /personas/" + rut, persona, PersonaResponseDTO.class,
+                () -> responder(servicioPersonas.actualizarPersona(rut, persona)));
     }
 
     @Operation(summary = "Eliminar una persona", description = "Elimina una persona de la base de datos según su RUT.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Persona eliminada con éxito",
                     content = @Content(examples = @ExampleObject(value = "\"Persona eliminada con éxito\""))),
-            @ApiResponse(responseCode = "202", description = "Operación guardada temporalmente debido a indisponibilidad de Firestore",
-                    content = @Content(examples = @ExampleObject(value = "\"Operación guardada temporalmente\""))),
+            @ApiResponse(responseCode = "202", description = "Operación guardada en el outbox por indisponibilidad de Firestore; su estado se consulta en la cabecera Location (/operaciones/{id})",
+                    content = @Content(schema = @Schema(implementation = EstadoOperacionDTO.class))),
             @ApiResponse(responseCode = "404", description = "Persona no encontrada",
                     content = @Content(examples = @ExampleObject(value = "\"Persona no encontrada\""))),
             @ApiResponse(responseCode = "409", description = "RUT inválido",
@@ -133,12 +163,10 @@ public class ControladorPersonas {
                     content = @Content(examples = @ExampleObject(value = "\"Error al procesar la solicitud\"")))
     })
     @DeleteMapping("/{rut}")
-    public ResponseEntity<String> eliminarPersona(@PathVariable String rut) throws Exception {
-        if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido detectado: {}", rut);
-            throw new jakarta.validation.ConstraintViolationException("RUT inválido", null);
-        }
-        servicioPersonas.eliminarPersona(rut);
-        return ResponseEntity.ok("Persona eliminada con éxito");
+    public ResponseEntity<?> eliminarPersona(@PathVariable("rut") String texto,
+                                             @RequestHeader(value = ServicioIdempotencia.CABECERA, required = false) String claveIdempotencia) throws Exception {
+        Rut rut = parsearRut(texto);
+        return servicioIdempotencia.ejecutar(claveIdempotencia, "DELETE /personas/" + rut, null, String.class,
+                () -> responder(servicioPersonas.eliminarPersona(rut), "Persona eliminada con éxito"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package cl.desafio_tecnico.crud_persona.dto;
+
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionFallida;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoOperacionDTO {
+    @Schema(example = "42")
+    private Long id;
+
+    @Schema(example = "19911121-3")
+    private String rut;
+
+    @Schema(example = "ACTUALIZAR")
+    private String tipoOperacion;
+
+    @Schema(example = "PENDING")
+    private EstadoOperacion estado;
+
+    @Schema(example = "Persona no encontrada")
+    private String detalle;
+
+    private Instant actualizadoEn;
+
+    @Schema(example = "0")
+    private int intentos;
+
+    private Instant proximoIntento;
+
+    public EstadoOperacionDTO(OperacionPendiente operacion) {
+        this.id = operacion.getId();
+        this.rut = operacion.getRut();
+        this.tipoOperacion = operacion.getTipoOperacion();
+        this.estado = operacion.getEstado() != null && operacion.getEstado().esTerminal() ? operacion.getEstado() : EstadoOperacion.PENDING;
+        this.detalle = operacion.getDetalle();
+        this.actualizadoEn = operacion.getActualizadoEn();
+        this.intentos = operacion.getIntentos() != null ? operacion.getIntentos() : 0;
+        this.proximoIntento = this.estado == EstadoOperacion.PENDING ? operacion.getProximoIntento() : null;
+    }
+
+    public EstadoOperacionDTO(OperacionFallida operacion) {
+        this.id = operacion.getId();
+        this.rut = operacion.getRut();
+        this.tipoOperacion = operacion.getTipoOperacion();
+        this.estado = EstadoOperacion.FAILED;
+        this.detalle = "En cola de fallidas: " + operacion.getUltimoError();
+        this.actualizadoEn = operacion.getFallidaEn();
+        this.intentos = operacion.getIntentos();
+    }
+}
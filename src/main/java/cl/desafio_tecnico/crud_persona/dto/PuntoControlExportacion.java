@@ -0,0 +1,22 @@
+package cl.desafio_tecnico.crud_persona.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+public class PuntoControlExportacion {
+    private String formato;
+    private List<String> cortes = new ArrayList<>();
+    private Map<Integer, String> ultimoRut = new HashMap<>();
+    private Map<Integer, Long> bytes = new HashMap<>();
+    private Map<Integer, Long> exportadas = new HashMap<>();
+    private Set<Integer> completas = new HashSet<>();
+}
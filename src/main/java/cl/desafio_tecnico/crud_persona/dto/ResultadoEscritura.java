@@ -0,0 +1,24 @@
+package cl.desafio_tecnico.crud_persona.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Resultado de una escritura: aplicada en Firestore (persona) o guardada en el outbox para aplicarse después (operacion)
+@Data
+@AllArgsConstructor
+public class ResultadoEscritura {
+    private PersonaResponseDTO persona;
+    private EstadoOperacionDTO operacion;
+
+    public static ResultadoEscritura aplicada(PersonaResponseDTO persona) {
+        return new ResultadoEscritura(persona, null);
+    }
+
+    public static ResultadoEscritura pendiente(EstadoOperacionDTO operacion) {
+        return new ResultadoEscritura(null, operacion);
+    }
+
+    public boolean isPendiente() {
+        return operacion != null;
+    }
+}
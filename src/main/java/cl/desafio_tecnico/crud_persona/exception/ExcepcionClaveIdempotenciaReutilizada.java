@@ -0,0 +1,7 @@
+package cl.desafio_tecnico.crud_persona.exception;
+
+public class ExcepcionClaveIdempotenciaReutilizada extends RuntimeException {
+    public ExcepcionClaveIdempotenciaReutilizada(String mensaje) {
+        super(mensaje);
+    }
+}
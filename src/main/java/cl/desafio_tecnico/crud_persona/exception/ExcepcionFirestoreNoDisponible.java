@@ -2,6 +2,7 @@ package cl.desafio_tecnico.crud_persona.exception;
 
 public class ExcepcionFirestoreNoDisponible extends Exception {
     public ExcepcionFirestoreNoDisponible(String mensaje) {
-        super(mensaje);
+        // Resultado esperado mientras Firestore está caído: sin stack trace ni supresión
+        super(mensaje, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package cl.desafio_tecnico.crud_persona.exception;
+
+public class ExcepcionIdempotenciaEnCurso extends RuntimeException {
+    public ExcepcionIdempotenciaEnCurso(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,8 @@
+package cl.desafio_tecnico.crud_persona.exception;
+
+// Operación del outbox que nunca podrá aplicarse (datos vacíos, tipo desconocido, persona inexistente...): va a la cola de fallidas
+public class ExcepcionOperacionInaplicable extends RuntimeException {
+    public ExcepcionOperacionInaplicable(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,28 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "arriendo_particion")
+public class ArriendoParticion {
+    @Id
+    @Column(name = "particion")
+    private Integer particion;
+
+    @Column(name = "propietario")
+    private String propietario;
+
+    @Column(name = "expira_en")
+    private Instant expiraEn;
+}
@@ -0,0 +1,13 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+public enum EstadoOperacion {
+    PENDING,
+    // Actualización retenida en memoria por la escritura diferida; hacia afuera se informa como PENDING
+    DEFERRED,
+    APPLIED,
+    FAILED;
+
+    public boolean esTerminal() {
+        return this == APPLIED || this == FAILED;
+    }
+}
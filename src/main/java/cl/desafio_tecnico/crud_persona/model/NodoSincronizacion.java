@@ -0,0 +1,25 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "nodo_sincronizacion")
+public class NodoSincronizacion {
+    @Id
+    @Column(name = "nodo")
+    private String nodo;
+
+    @Column(name = "visto_en")
+    private Instant vistoEn;
+}
@@ -0,0 +1,49 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Cola de fallidas: operaciones del outbox que agotaron sus reintentos o no pueden aplicarse.
+// Conserva el id de la operación original para que GET /operaciones/{id} siga respondiendo.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "operacion_fallida")
+public class OperacionFallida {
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "rut")
+    private String rut;
+
+    @Column(name = "tipo_operacion")
+    private String tipoOperacion;
+
+    @Column(name = "datos")
+    private String datos;
+
+    @Column(name = "particion")
+    private Integer particion;
+
+    @Column(name = "intentos")
+    private int intentos;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fallida_en")
+    private Instant fallidaEn;
+
+    // Id de la nueva operación pendiente creada al reintentarla manualmente
+    @Column(name = "reintentada_como")
+    private Long reintentadaComo;
+}
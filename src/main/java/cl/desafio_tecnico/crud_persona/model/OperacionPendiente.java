@@ -1,20 +1,28 @@
 package cl.desafio_tecnico.crud_persona.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "operacion_pendiente")
+@Table(name = "operacion_pendiente", indexes = {
+        @Index(name = "idx_operacion_pendiente_rut_estado", columnList = "rut, estado"),
+        @Index(name = "idx_operacion_pendiente_estado_particion", columnList = "estado, particion")
+})
 public class OperacionPendiente {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,4 +37,23 @@ public class OperacionPendiente {
 
     @Column(name = "datos")
     private String datos;
-}
\ No newline at end of file
+
+    @Column(name = "particion")
+    private Integer particion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", length = 16)
+    private EstadoOperacion estado;
+
+    @Column(name = "detalle", length = 1000)
+    private String detalle;
+
+    @Column(name = "actualizado_en")
+    private Instant actualizadoEn;
+
+    @Column(name = "intentos")
+    private Integer intentos;
+
+    @Column(name = "proximo_intento")
+    private Instant proximoIntento;
+}
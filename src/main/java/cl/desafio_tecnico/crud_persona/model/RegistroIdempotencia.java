@@ -0,0 +1,35 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "registro_idempotencia")
+public class RegistroIdempotencia {
+    @Id
+    @Column(name = "clave", length = 512)
+    private String clave;
+
+    @Column(name = "estado_http")
+    private int estadoHttp;
+
+    @Column(name = "cuerpo", length = 4000)
+    private String cuerpo;
+
+    @Column(name = "creado_en")
+    private Instant creadoEn;
+
+    // SHA-256 del cuerpo de la solicitud original; null en registros anteriores a la comprobación
+    @Column(name = "huella", length = 64)
+    private String huella;
+}
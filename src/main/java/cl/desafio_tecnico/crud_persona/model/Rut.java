@@ -0,0 +1,77 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+// RUT canónico: el cuerpo numérico cabe en un int y el dígito verificador se deriva de él,
+// así que el int es una clave completa. toString() da la forma canónica "12345678-K" usada como id de documento.
+public record Rut(int cuerpo) {
+    private static final int CUERPO_MAXIMO = 99_999_999;
+
+    public Rut {
+        if (cuerpo <= 0 || cuerpo > CUERPO_MAXIMO) {
+            throw new IllegalArgumentException("Cuerpo de RUT fuera de rango: " + cuerpo);
+        }
+    }
+
+    // Acepta "19.911.121-3", "19911121-3" o "199111213": el guión solo antes del dígito verificador y, si hay puntos,
+    // separando todos los grupos de miles del cuerpo. Como máximo 8 dígitos significativos (el cuerpo cabe en un int).
+    // Devuelve null si el formato o el dígito verificador no son válidos
+    public static Rut parsear(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return null;
+        }
+        char verificador = Character.toUpperCase(texto.charAt(texto.length() - 1));
+        int fin = texto.length() - 1;
+        if (fin > 0 && texto.charAt(fin - 1) == '-') {
+            fin--;
+        }
+        boolean conPuntos = texto.indexOf('.') >= 0;
+        int cuerpo = 0;
+        int digitos = 0;
+        for (int i = 0; i < fin; i++) {
+            char c = texto.charAt(i);
+            // Contando desde el final del cuerpo, con puntos cada cuarto carácter es el separador de miles
+            if (conPuntos && (fin - i) % 4 == 0) {
+                if (c != '.' || i == 0) {
+                    return null;
+                }
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            if ((cuerpo > 0 || c != '0') && ++digitos > 8) {
+                return null;
+            }
+            cuerpo = cuerpo * 10 + (c - '0');
+        }
+        if (cuerpo == 0) {
+            return null;
+        }
+        return digitoVerificador(cuerpo) == verificador ? new Rut(cuerpo) : null;
+    }
+
+    public static char digitoVerificador(int cuerpo) {
+        int suma = 0;
+        int multiplicador = 2;
+        for (int n = cuerpo; n > 0; n /= 10) {
+            suma += (n % 10) * multiplicador;
+            multiplicador = (multiplicador == 7) ? 2 : multiplicador + 1;
+        }
+        int dvCalculado = 11 - suma % 11;
+        if (dvCalculado == 11) {
+            return '0';
+        }
+        if (dvCalculado == 10) {
+            return 'K';
+        }
+        return Character.forDigit(dvCalculado, 10);
+    }
+
+    public char digitoVerificador() {
+        return digitoVerificador(cuerpo);
+    }
+
+    @Override
+    public String toString() {
+        return cuerpo + "-" + digitoVerificador();
+    }
+}
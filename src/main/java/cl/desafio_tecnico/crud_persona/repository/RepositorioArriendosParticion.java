@@ -0,0 +1,45 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.ArriendoParticion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RepositorioArriendosParticion extends JpaRepository<ArriendoParticion, Integer> {
+
+    // Hora de la base compartida: los arriendos de todos los nodos se miden con el mismo reloj
+    @Query("select current_instant")
+    Instant horaBase();
+
+    // Reclamo atómico a nivel de fila: solo prospera si la partición es propia, está libre o su arriendo expiró
+    @Modifying
+    @Transactional
+    @Query("update ArriendoParticion a set a.propietario = :nodo, a.expiraEn = :expira " +
+            "where a.particion = :particion and (a.propietario = :nodo or a.propietario is null or a.expiraEn < :ahora)")
+    int reclamar(@Param("particion") Integer particion, @Param("nodo") String nodo,
+                 @Param("ahora") Instant ahora, @Param("expira") Instant expira);
+
+    @Modifying
+    @Transactional
+    @Query("update ArriendoParticion a set a.propietario = null, a.expiraEn = null " +
+            "where a.particion = :particion and a.propietario = :nodo")
+    int liberar(@Param("particion") Integer particion, @Param("nodo") String nodo);
+
+    @Modifying
+    @Transactional
+    @Query("update ArriendoParticion a set a.propietario = null, a.expiraEn = null where a.propietario = :nodo")
+    int liberarTodas(@Param("nodo") String nodo);
+
+    @Query("select a.particion from ArriendoParticion a " +
+            "where a.propietario = :nodo and a.expiraEn >= :ahora order by a.particion")
+    List<Integer> particionesDe(@Param("nodo") String nodo, @Param("ahora") Instant ahora);
+
+    @Query("select a.particion from ArriendoParticion a " +
+            "where a.propietario is null or a.expiraEn < :ahora order by a.particion")
+    List<Integer> particionesLibres(@Param("ahora") Instant ahora);
+}
@@ -0,0 +1,11 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.NodoSincronizacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+
+public interface RepositorioNodosSincronizacion extends JpaRepository<NodoSincronizacion, String> {
+
+    long countByVistoEnAfter(Instant limite);
+}
@@ -0,0 +1,30 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.OperacionFallida;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface RepositorioOperacionesFallidas extends JpaRepository<OperacionFallida, Long> {
+
+    List<OperacionFallida> findByReintentadaComoIsNullOrderByIdAsc(Pageable pagina);
+
+    // SELECT ... FOR UPDATE: serializa los reintentos concurrentes de la misma fallida, también entre nodos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OperacionFallida o where o.id = :id")
+    Optional<OperacionFallida> bloquearPorId(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OperacionFallida o where o.reintentadaComo is not null and o.fallidaEn < :limite")
+    int eliminarReintentadasAnterioresA(@Param("limite") Instant limite);
+}
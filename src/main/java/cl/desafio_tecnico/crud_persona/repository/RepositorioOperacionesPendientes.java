@@ -1,7 +1,62 @@
 package cl.desafio_tecnico.crud_persona.repository;
 
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
 import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface RepositorioOperacionesPendientes extends JpaRepository<OperacionPendiente, String> {
-}
\ No newline at end of file
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface RepositorioOperacionesPendientes extends JpaRepository<OperacionPendiente, Long> {
+
+    List<OperacionPendiente> findByParticionIsNull();
+
+    // PENDING de las particiones listas para aplicarse: sin backoff vigente y sin una operación anterior del mismo RUT
+    // que deba ir antes (diferida o esperando su reintento). Por id y desde un id, para paginar sin offset
+    @Query("select o from OperacionPendiente o where o.particion in :particiones and o.id > :desde " +
+            "and o.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.PENDING " +
+            "and (o.proximoIntento is null or o.proximoIntento <= :ahora) " +
+            "and not exists (select a.id from OperacionPendiente a where a.rut = o.rut and a.id < o.id " +
+            "and (a.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.DEFERRED " +
+            "or (a.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.PENDING and a.proximoIntento > :ahora))) " +
+            "order by o.id")
+    List<OperacionPendiente> listasParaAplicar(@Param("particiones") Collection<Integer> particiones, @Param("desde") Long desde,
+                                               @Param("ahora") Instant ahora, Pageable pagina);
+
+    List<OperacionPendiente> findByEstadoIn(Collection<EstadoOperacion> estados);
+
+    long countByEstado(EstadoOperacion estado);
+
+    boolean existsByRutAndEstadoInAndIdLessThan(String rut, Collection<EstadoOperacion> estados, Long id);
+
+    boolean existsByRutAndEstadoIn(String rut, Collection<EstadoOperacion> estados);
+
+    // Filas anteriores al seguimiento de estado
+    @Modifying
+    @Transactional
+    @Query("update OperacionPendiente o set o.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.PENDING where o.estado is null")
+    int marcarSinEstadoComoPendientes();
+
+    @Modifying
+    @Transactional
+    @Query("delete from OperacionPendiente o where o.estado in :terminales and o.actualizadoEn < :limite")
+    int eliminarTerminadasAnterioresA(@Param("terminales") Collection<EstadoOperacion> terminales, @Param("limite") Instant limite);
+
+    // Funde una actualización en su fila diferida solo si sigue DEFERRED: si ya pasó al outbox, 0 filas
+    @Modifying
+    @Transactional
+    @Query("update OperacionPendiente o set o.datos = :datos, o.actualizadoEn = :ahora where o.id = :id and o.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.DEFERRED")
+    int fundirDiferida(@Param("id") Long id, @Param("datos") String datos, @Param("ahora") Instant ahora);
+
+    // Actualizaciones diferidas que quedaron huérfanas (caída del nodo antes de vaciarlas)
+    @Modifying
+    @Transactional
+    @Query("update OperacionPendiente o set o.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.PENDING where o.estado = cl.desafio_tecnico.crud_persona.model.EstadoOperacion.DEFERRED and o.actualizadoEn < :limite")
+    int reactivarDiferidasAnterioresA(@Param("limite") Instant limite);
+}
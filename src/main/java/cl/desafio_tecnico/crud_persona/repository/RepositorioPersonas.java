@@ -0,0 +1,36 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import com.google.api.core.ApiFuture;
+
+import java.util.List;
+
+// Acceso a la colección de personas. Los errores llegan como ApiException con el código gRPC de Firestore
+// (ALREADY_EXISTS, NOT_FOUND, UNAVAILABLE...), también en la implementación simulada.
+public interface RepositorioPersonas {
+
+    boolean estaDisponible();
+
+    void reportarError(Throwable error);
+
+    ApiFuture<Void> crear(Persona persona);
+
+    ApiFuture<Void> actualizar(Persona persona);
+
+    ApiFuture<Void> eliminar(String rut);
+
+    ApiFuture<Void> eliminarSiExiste(String rut);
+
+    ApiFuture<Persona> obtener(String rut);
+
+    // Mueve el documento idAnterior al id persona.getRut() en un solo commit; ALREADY_EXISTS si el destino ya existe
+    ApiFuture<Void> renombrar(String idAnterior, Persona persona);
+
+    ApiFuture<List<Persona>> listar();
+
+    // RUTs que dividen la colección en como mucho 'particiones' rangos de tamaño similar, en orden ascendente
+    ApiFuture<List<String>> puntosDeCorte(int particiones);
+
+    // Página ordenada por RUT dentro del rango (desdeExclusivo, hastaInclusivo]; null = sin límite
+    ApiFuture<List<Persona>> pagina(String desdeExclusivo, String hastaInclusivo, int limite);
+}
@@ -0,0 +1,169 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.config.GestorFirestore;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.util.UtilidadesPersona;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryPartition;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(name = "firestore.modo", havingValue = "firestore", matchIfMissing = true)
+public class RepositorioPersonasFirestore implements RepositorioPersonas {
+    private static final String COLECCION = "personas";
+
+    @Autowired
+    private GestorFirestore gestorFirestore;
+
+    @Override
+    public boolean estaDisponible() {
+        return gestorFirestore.estaDisponible();
+    }
+
+    @Override
+    public void reportarError(Throwable error) {
+        gestorFirestore.reportarError(error);
+    }
+
+    @Override
+    public ApiFuture<Void> crear(Persona persona) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        return sinResultado(db.collection(COLECCION).document(persona.getRut()).create(persona));
+    }
+
+    @Override
+    public ApiFuture<Void> actualizar(Persona persona) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        // update() exige que el documento exista: un solo RPC en vez de exists() + set()
+        return sinResultado(db.collection(COLECCION).document(persona.getRut()).update(UtilidadesPersona.aMapa(persona)));
+    }
+
+    @Override
+    public ApiFuture<Void> eliminar(String rut) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        // El SDK no expone la precondición exists en delete(); el update() del mismo lote la aporta y el commit es atómico
+        DocumentReference documento = db.collection(COLECCION).document(rut);
+        WriteBatch lote = db.batch();
+        lote.update(documento, "rut", rut);
+        lote.delete(documento);
+        return sinResultado(lote.commit());
+    }
+
+    @Override
+    public ApiFuture<Void> eliminarSiExiste(String rut) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        return sinResultado(db.collection(COLECCION).document(rut).delete());
+    }
+
+    @Override
+    public ApiFuture<Void> renombrar(String idAnterior, Persona persona) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        WriteBatch lote = db.batch();
+        lote.create(db.collection(COLECCION).document(persona.getRut()), persona);
+        lote.delete(db.collection(COLECCION).document(idAnterior));
+        return sinResultado(lote.commit());
+    }
+
+    @Override
+    public ApiFuture<Persona> obtener(String rut) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        return ApiFutures.transform(db.collection(COLECCION).document(rut).get(),
+                documento -> documento.exists() ? documento.toObject(Persona.class) : null,
+                MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ApiFuture<List<Persona>> listar() {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        CollectionReference coleccion = db.collection(COLECCION);
+        return ApiFutures.transform(coleccion.get(),
+                consulta -> consulta.getDocuments().stream().map(documento -> documento.toObject(Persona.class)).toList(),
+                MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ApiFuture<List<String>> puntosDeCorte(int particiones) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        // Partition queries de Firestore: cada partición (salvo la primera) empieza en un documento de corte
+        return ApiFutures.transform(db.collectionGroup(COLECCION).getPartitions(particiones),
+                particionesConsulta -> {
+                    List<String> cortes = new ArrayList<>();
+                    for (QueryPartition particion : particionesConsulta) {
+                        Object[] inicio = particion.getStartAt();
+                        if (inicio != null && inicio.length > 0 && inicio[0] instanceof DocumentReference documento) {
+                            cortes.add(documento.getId());
+                        }
+                    }
+                    cortes.sort(null);
+                    return cortes;
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ApiFuture<List<Persona>> pagina(String desdeExclusivo, String hastaInclusivo, int limite) {
+        Firestore db = gestorFirestore.obtener();
+        if (db == null) {
+            return noDisponible();
+        }
+        Query consulta = db.collection(COLECCION).orderBy(FieldPath.documentId());
+        if (desdeExclusivo != null) {
+            consulta = consulta.startAfter(desdeExclusivo);
+        }
+        if (hastaInclusivo != null) {
+            consulta = consulta.endAt(hastaInclusivo);
+        }
+        return ApiFutures.transform(consulta.limit(limite).get(),
+                resultado -> resultado.getDocuments().stream().map(documento -> documento.toObject(Persona.class)).toList(),
+                MoreExecutors.directExecutor());
+    }
+
+    private static <T> ApiFuture<Void> sinResultado(ApiFuture<T> futuro) {
+        return ApiFutures.transform(futuro, resultado -> null, MoreExecutors.directExecutor());
+    }
+
+    private static <T> ApiFuture<T> noDisponible() {
+        return ApiFutures.immediateFailedFuture(ApiExceptionFactory.createException(
+                "Firestore no disponible", null, GrpcStatusCode.of(Status.Code.UNAVAILABLE), true));
+    }
+}
@@ -0,0 +1,196 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.Direccion;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import io.grpc.Status;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Sustituto local de Firestore para pruebas de carga: datos en memoria, latencia configurable e inyección de caídas
+@Repository
+@ConditionalOnProperty(name = "firestore.modo", havingValue = "simulado")
+public class RepositorioPersonasSimulado implements RepositorioPersonas {
+    private static final Logger logger = LoggerFactory.getLogger(RepositorioPersonasSimulado.class);
+
+    private final ConcurrentSkipListMap<String, Persona> personas = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService planificador = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    @Value("${firestore.simulado.latencia-ms:5}")
+    private long latenciaMs;
+
+    @Value("${firestore.simulado.variacion-ms:5}")
+    private long variacionMs;
+
+    private volatile boolean caido = false;
+
+    @Value("${firestore.simulado.caido:false}")
+    public void setCaido(boolean caido) {
+        if (this.caido != caido) {
+            logger.info("Firestore simulado {}", caido ? "CAÍDO" : "DISPONIBLE");
+        }
+        this.caido = caido;
+    }
+
+    public boolean estaCaido() {
+        return caido;
+    }
+
+    public void setLatencia(long latenciaMs, long variacionMs) {
+        this.latenciaMs = latenciaMs;
+        this.variacionMs = variacionMs;
+    }
+
+    @Override
+    public boolean estaDisponible() {
+        return !caido;
+    }
+
+    @Override
+    public void reportarError(Throwable error) {
+    }
+
+    @Override
+    public ApiFuture<Void> crear(Persona persona) {
+        Persona copia = copiar(persona);
+        return responder(() -> {
+            if (personas.putIfAbsent(copia.getRut(), copia) != null) {
+                throw error(Status.Code.ALREADY_EXISTS, "Documento ya existe: " + persona.getRut());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public ApiFuture<Void> actualizar(Persona persona) {
+        Persona copia = copiar(persona);
+        return responder(() -> {
+            if (personas.replace(copia.getRut(), copia) == null) {
+                throw error(Status.Code.NOT_FOUND, "Documento no encontrado: " + persona.getRut());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public ApiFuture<Void> eliminar(String rut) {
+        return responder(() -> {
+            if (personas.remove(rut) == null) {
+                throw error(Status.Code.NOT_FOUND, "Documento no encontrado: " + rut);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public ApiFuture<Void> eliminarSiExiste(String rut) {
+        return responder(() -> {
+            personas.remove(rut);
+            return null;
+        });
+    }
+
+    @Override
+    public ApiFuture<Void> renombrar(String idAnterior, Persona persona) {
+        Persona copia = copiar(persona);
+        return responder(() -> {
+            if (personas.putIfAbsent(copia.getRut(), copia) != null) {
+                throw error(Status.Code.ALREADY_EXISTS, "Documento ya existe: " + persona.getRut());
+            }
+            personas.remove(idAnterior);
+            return null;
+        });
+    }
+
+    @Override
+    public ApiFuture<Persona> obtener(String rut) {
+        return responder(() -> copiar(personas.get(rut)));
+    }
+
+    @Override
+    public ApiFuture<List<Persona>> listar() {
+        return responder(() -> personas.values().stream().map(RepositorioPersonasSimulado::copiar).toList());
+    }
+
+    @Override
+    public ApiFuture<List<String>> puntosDeCorte(int particiones) {
+        return responder(() -> {
+            List<String> ruts = new ArrayList<>(personas.keySet());
+            List<String> cortes = new ArrayList<>();
+            for (int i = 1; i < particiones && !ruts.isEmpty(); i++) {
+                String corte = ruts.get((int) ((long) ruts.size() * i / particiones));
+                if (cortes.isEmpty() || !cortes.get(cortes.size() - 1).equals(corte)) {
+                    cortes.add(corte);
+                }
+            }
+            return cortes;
+        });
+    }
+
+    @Override
+    public ApiFuture<List<Persona>> pagina(String desdeExclusivo, String hastaInclusivo, int limite) {
+        return responder(() -> {
+            NavigableMap<String, Persona> rango = personas;
+            if (desdeExclusivo != null) {
+                rango = rango.tailMap(desdeExclusivo, false);
+            }
+            if (hastaInclusivo != null) {
+                rango = rango.headMap(hastaInclusivo, true);
+            }
+            return rango.values().stream().limit(limite).map(RepositorioPersonasSimulado::copiar).toList();
+        });
+    }
+
+    // Como Firestore, guarda y entrega instantáneas: el llamador no puede modificar los datos almacenados por referencia
+    private static Persona copiar(Persona persona) {
+        if (persona == null) {
+            return null;
+        }
+        Direccion direccion = persona.getDireccion() == null ? null
+                : new Direccion(persona.getDireccion().getCalle(), persona.getDireccion().getComuna(), persona.getDireccion().getRegion());
+        return new Persona(persona.getRut(), persona.getNombre(), persona.getApellido(), persona.getFechaNacimiento(), direccion);
+    }
+
+    private <T> ApiFuture<T> responder(Supplier<T> operacion) {
+        SettableApiFuture<T> futuro = SettableApiFuture.create();
+        long demora = latenciaMs + (variacionMs > 0 ? ThreadLocalRandom.current().nextLong(variacionMs + 1) : 0);
+        planificador.schedule(() -> {
+            try {
+                if (caido) {
+                    throw error(Status.Code.UNAVAILABLE, "Firestore simulado no disponible");
+                }
+                futuro.set(operacion.get());
+            } catch (RuntimeException e) {
+                futuro.setException(e);
+            }
+        }, demora, TimeUnit.MILLISECONDS);
+        return futuro;
+    }
+
+    private static RuntimeException error(Status.Code codigo, String mensaje) {
+        return ApiExceptionFactory.createException(mensaje, null, GrpcStatusCode.of(codigo), codigo == Status.Code.UNAVAILABLE);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        planificador.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.RegistroIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface RepositorioRegistrosIdempotencia extends JpaRepository<RegistroIdempotencia, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from RegistroIdempotencia r where r.creadoEn < :limite")
+    int eliminarAnterioresA(@Param("limite") Instant limite);
+}
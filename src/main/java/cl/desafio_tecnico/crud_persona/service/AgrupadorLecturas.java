@@ -0,0 +1,75 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Single-flight: lecturas concurrentes con la misma clave comparten el mismo futuro de Firestore en curso
+@Component
+public class AgrupadorLecturas {
+    public static final String METRICA_AGRUPADAS = "personas.lecturas.agrupadas";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ApiFuture<?>> enCurso = new ConcurrentHashMap<>();
+
+    // Lecturas por RUT: solo contiene las lecturas en curso, así que un mapa concurrente con clave Rut basta
+    private final Map<Rut, ApiFuture<?>> enCursoPorRut = new ConcurrentHashMap<>();
+
+    public <T> ApiFuture<T> compartir(String tipoConsulta, String clave, Supplier<ApiFuture<T>> lectura) {
+        return compartir(enCurso, tipoConsulta + ":" + clave, tipoConsulta, lectura);
+    }
+
+    public <T> ApiFuture<T> compartir(Rut rut, Supplier<ApiFuture<T>> lectura) {
+        return compartir(enCursoPorRut, rut, "persona", lectura);
+    }
+
+    // Al confirmarse una escritura del RUT, las lecturas ya en curso pueden haber empezado antes que ella: se quitan
+    // del mapa para que las siguientes (por ejemplo, el GET tras el PUT del mismo cliente) lancen una lectura nueva.
+    // Las consultas con clave de texto son del listado completo, que puede incluir cualquier RUT.
+    public void invalidar(Rut rut) {
+        if (rut != null) {
+            enCursoPorRut.remove(rut);
+        }
+        enCurso.clear();
+    }
+
+    // Se reserva la clave con un futuro propio y la lectura se lanza fuera de cualquier bloqueo del mapa
+    @SuppressWarnings("unchecked")
+    private <K, T> ApiFuture<T> compartir(Map<K, ApiFuture<?>> mapa, K clave, String tipoConsulta, Supplier<ApiFuture<T>> lectura) {
+        SettableApiFuture<T> propio = SettableApiFuture.create();
+        ApiFuture<?> existente = mapa.putIfAbsent(clave, propio);
+        if (existente != null) {
+            meterRegistry.counter(METRICA_AGRUPADAS, "consulta", tipoConsulta).increment();
+            return (ApiFuture<T>) existente;
+        }
+        propio.addListener(() -> mapa.remove(clave, propio), MoreExecutors.directExecutor());
+        try {
+            ApiFutures.addCallback(lectura.get(), new ApiFutureCallback<T>() {
+                @Override
+                public void onSuccess(T resultado) {
+                    propio.set(resultado);
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    propio.setException(error);
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (RuntimeException e) {
+            propio.setException(e);
+        }
+        return propio;
+    }
+}
@@ -0,0 +1,142 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.model.ArriendoParticion;
+import cl.desafio_tecnico.crud_persona.model.NodoSincronizacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioArriendosParticion;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioNodosSincronizacion;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reparte las particiones del outbox entre las instancias que comparten la base H2 mediante arriendos con expiración.
+// Todas las operaciones de un mismo RUT caen en la misma partición, así que se aplican en orden y por un solo nodo.
+@Component
+public class CoordinadorParticiones {
+    private static final Logger logger = LoggerFactory.getLogger(CoordinadorParticiones.class);
+
+    @Autowired
+    private RepositorioArriendosParticion repositorioArriendosParticion;
+
+    @Autowired
+    private RepositorioNodosSincronizacion repositorioNodosSincronizacion;
+
+    @Autowired
+    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+
+    @Value("${sincronizacion.particiones:16}")
+    private int particiones;
+
+    @Value("${sincronizacion.arriendo-ms:90000}")
+    private long arriendoMs;
+
+    @Value("${sincronizacion.margen-arriendo-ms:5000}")
+    private long margenArriendoMs;
+
+    @Value("${sincronizacion.nodo:}")
+    private String nodo;
+
+    private final Map<Integer, Instant> arriendosPropios = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() throws Exception {
+        if (nodo == null || nodo.isBlank()) {
+            nodo = InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        for (int particion = 0; particion < particiones; particion++) {
+            if (!repositorioArriendosParticion.existsById(particion)) {
+                try {
+                    repositorioArriendosParticion.save(new ArriendoParticion(particion, null, null));
+                } catch (DataIntegrityViolationException e) {
+                    logger.debug("Partición {} creada por otro nodo", particion);
+                }
+            }
+        }
+        List<OperacionPendiente> sinParticion = repositorioOperacionesPendientes.findByParticionIsNull();
+        for (OperacionPendiente pendiente : sinParticion) {
+            pendiente.setParticion(particionDe(pendiente.getRut()));
+        }
+        repositorioOperacionesPendientes.saveAll(sinParticion);
+        logger.info("Nodo de sincronización {} - {} particiones de outbox", nodo, particiones);
+    }
+
+    public int particionDe(String rut) {
+        return Math.floorMod(rut.hashCode(), particiones);
+    }
+
+    public String getNodo() {
+        return nodo;
+    }
+
+    // Registra el latido del nodo, renueva hasta su cuota de particiones, libera el exceso y reclama libres o expiradas.
+    // Latidos y arriendos usan la hora de la base, así que el desfase entre los relojes de los nodos no adelanta la
+    // expiración; localmente el arriendo se cuenta desde antes de consultarla, por lo que nunca se cree vigente de más.
+    public List<Integer> renovarArriendos() {
+        Instant inicioLocal = Instant.now();
+        Instant ahora = repositorioArriendosParticion.horaBase();
+        Instant expira = ahora.plusMillis(arriendoMs);
+        repositorioNodosSincronizacion.save(new NodoSincronizacion(nodo, ahora));
+        long nodosActivos = Math.max(1, repositorioNodosSincronizacion.countByVistoEnAfter(ahora.minusMillis(arriendoMs)));
+        int cuota = (int) Math.ceil((double) particiones / nodosActivos);
+
+        List<Integer> propias = new ArrayList<>();
+        for (Integer particion : repositorioArriendosParticion.particionesDe(nodo, ahora)) {
+            if (propias.size() < cuota && repositorioArriendosParticion.reclamar(particion, nodo, ahora, expira) == 1) {
+                propias.add(particion);
+            } else {
+                repositorioArriendosParticion.liberar(particion, nodo);
+                logger.info("Partición {} liberada para reequilibrar entre {} nodos", particion, nodosActivos);
+            }
+        }
+        for (Integer particion : repositorioArriendosParticion.particionesLibres(ahora)) {
+            if (propias.size() >= cuota) {
+                break;
+            }
+            if (repositorioArriendosParticion.reclamar(particion, nodo, ahora, expira) == 1) {
+                propias.add(particion);
+            }
+        }
+
+        arriendosPropios.clear();
+        for (Integer particion : propias) {
+            arriendosPropios.put(particion, inicioLocal.plusMillis(arriendoMs));
+        }
+        logger.debug("Nodo {} - particiones propias: {} (cuota {}, nodos activos {})", nodo, propias, cuota, nodosActivos);
+        return propias;
+    }
+
+    // Deja un margen para no aplicar una operación justo cuando otro nodo puede tomar la partición
+    public boolean conservaArriendo(Integer particion) {
+        Instant expira = arriendosPropios.get(particion);
+        return expira != null && Instant.now().plus(Duration.ofMillis(margenArriendoMs)).isBefore(expira);
+    }
+
+    // Con AUTO_SERVER la base se cierra en su propio shutdown hook, que puede correr antes que este
+    @PreDestroy
+    public void liberar() {
+        arriendosPropios.clear();
+        try {
+            repositorioArriendosParticion.liberarTodas(nodo);
+            repositorioNodosSincronizacion.deleteById(nodo);
+            logger.info("Nodo {} liberó sus particiones del outbox", nodo);
+        } catch (DataAccessException e) {
+            logger.warn("Nodo {} no pudo liberar sus particiones - Se tomarán al expirar el arriendo: {}", nodo, e.getMessage());
+        }
+    }
+}
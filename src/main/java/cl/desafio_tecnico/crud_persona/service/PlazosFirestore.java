@@ -0,0 +1,197 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.config.DecoradorMdc;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Plazos por tipo de operación para las llamadas a Firestore y lecturas cubiertas (hedged): si la lectura supera
+// el percentil configurado de la latencia reciente se lanza una de respaldo y gana la primera en responder
+@Component
+public class PlazosFirestore {
+    public static final String METRICA_COBERTURA = "personas.lecturas.cobertura";
+    private static final int MUESTRAS = 256;
+    private static final int MUESTRAS_MINIMAS = 64;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${firestore.plazo-lectura-ms:2000}")
+    private long plazoLecturaMs;
+
+    @Value("${firestore.plazo-escritura-ms:5000}")
+    private long plazoEscrituraMs;
+
+    @Value("${firestore.cobertura.habilitada:false}")
+    private boolean coberturaHabilitada;
+
+    @Value("${firestore.cobertura.percentil:95}")
+    private double percentil;
+
+    @Value("${firestore.cobertura.minimo-ms:20}")
+    private long minimoMs;
+
+    // Solo lanza las lecturas de respaldo; se cierra con el componente. No es un bean TaskScheduler para no
+    // desplazar al planificador de las tareas @Scheduled que Spring Boot configura cuando no hay otro
+    private final ThreadPoolTaskScheduler planificador = new ThreadPoolTaskScheduler();
+    private final Map<String, Latencias> latencias = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        planificador.setThreadNamePrefix("cobertura-");
+        planificador.setDaemon(true);
+        planificador.setTaskDecorator(new DecoradorMdc());
+        planificador.initialize();
+    }
+
+    // No cancela el futuro: puede estar compartido por lecturas agrupadas
+    public <T> T esperarLectura(ApiFuture<T> futuro) throws ExecutionException, InterruptedException, TimeoutException {
+        return futuro.get(plazoLecturaMs, TimeUnit.MILLISECONDS);
+    }
+
+    public <T> T esperarEscritura(ApiFuture<T> futuro) throws ExecutionException, InterruptedException, TimeoutException {
+        try {
+            return futuro.get(plazoEscrituraMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw e;
+        }
+    }
+
+    // Solo para lecturas idempotentes
+    public <T> ApiFuture<T> cubrir(String consulta, Supplier<ApiFuture<T>> lectura) {
+        Latencias historial = latencias.computeIfAbsent(consulta, k -> new Latencias());
+        ApiFuture<T> primaria = medir(historial, lectura.get());
+        long umbralUs = coberturaHabilitada ? historial.umbral() : -1;
+        if (umbralUs < 0 || umbralUs >= TimeUnit.MILLISECONDS.toMicros(plazoLecturaMs)) {
+            return primaria;
+        }
+
+        Cubierta<T> cubierta = new Cubierta<>(consulta);
+        cubierta.seguir(primaria, false);
+        ScheduledFuture<?> respaldo = planificador.schedule(() -> {
+            if (cubierta.lanzarRespaldo()) {
+                meterRegistry.counter(METRICA_COBERTURA, "consulta", consulta, "resultado", "enviada").increment();
+                try {
+                    cubierta.seguir(medir(historial, lectura.get()), true);
+                } catch (RuntimeException e) {
+                    cubierta.fallo(e);
+                }
+            }
+        }, Instant.now().plus(umbralUs, ChronoUnit.MICROS));
+        cubierta.resultado.addListener(() -> {
+            respaldo.cancel(false);
+            cubierta.cancelarPerdedoras();
+        }, MoreExecutors.directExecutor());
+        return cubierta.resultado;
+    }
+
+    private <T> ApiFuture<T> medir(Latencias historial, ApiFuture<T> futuro) {
+        long inicio = System.nanoTime();
+        futuro.addListener(() -> {
+            if (!futuro.isCancelled()) {
+                historial.registrar(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio));
+            }
+        }, MoreExecutors.directExecutor());
+        return futuro;
+    }
+
+    private class Cubierta<T> {
+        private final String consulta;
+        private final SettableApiFuture<T> resultado = SettableApiFuture.create();
+        private final ApiFuture<?>[] lanzadas = new ApiFuture<?>[2];
+        // La primaria cuenta desde el inicio; el respaldo se reserva antes de lanzarse
+        private int enCurso = 1;
+        private boolean respaldoPosible = true;
+
+        Cubierta(String consulta) {
+            this.consulta = consulta;
+        }
+
+        synchronized boolean lanzarRespaldo() {
+            if (!respaldoPosible || resultado.isDone()) {
+                return false;
+            }
+            enCurso++;
+            return true;
+        }
+
+        void seguir(ApiFuture<T> futuro, boolean respaldo) {
+            synchronized (this) {
+                lanzadas[respaldo ? 1 : 0] = futuro;
+            }
+            futuro.addListener(() -> {
+                try {
+                    T valor = futuro.get();
+                    if (resultado.set(valor) && respaldo) {
+                        meterRegistry.counter(METRICA_COBERTURA, "consulta", consulta, "resultado", "ganadora").increment();
+                    }
+                } catch (ExecutionException e) {
+                    fallo(e.getCause());
+                } catch (Exception e) {
+                    fallo(e);
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        // Un error se informa cuando ya no queda otra lectura en curso que pueda responder
+        private synchronized void fallo(Throwable error) {
+            if (--enCurso == 0) {
+                respaldoPosible = false;
+                resultado.setException(error);
+            }
+        }
+
+        synchronized void cancelarPerdedoras() {
+            for (ApiFuture<?> lanzada : lanzadas) {
+                if (lanzada != null && !lanzada.isDone()) {
+                    lanzada.cancel(true);
+                }
+            }
+        }
+    }
+
+    // Latencias en microsegundos de las últimas MUESTRAS lecturas; el umbral se recalcula cada 32
+    private class Latencias {
+        private final long[] muestras = new long[MUESTRAS];
+        private long total;
+        private long umbralUs = -1;
+
+        synchronized void registrar(long us) {
+            muestras[(int) (total++ % MUESTRAS)] = us;
+            if (total >= MUESTRAS_MINIMAS && total % 32 == 0) {
+                long[] ordenadas = Arrays.copyOf(muestras, (int) Math.min(total, MUESTRAS));
+                Arrays.sort(ordenadas);
+                int indice = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+                umbralUs = Math.max(TimeUnit.MILLISECONDS.toMicros(minimoMs), ordenadas[Math.max(0, indice)]);
+            }
+        }
+
+        synchronized long umbral() {
+            return umbralUs;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        planificador.shutdown();
+    }
+}
@@ -0,0 +1,317 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.config.DecoradorMdc;
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
+import cl.desafio_tecnico.crud_persona.dto.ResultadoEscritura;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import cl.desafio_tecnico.crud_persona.util.MapaRut;
+import cl.desafio_tecnico.crud_persona.util.UtilidadesFirestore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.gax.rpc.StatusCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Escritura diferida (opcional): los PUT a un mismo RUT dentro de una ventana se funden en memoria y se aplican
+// con una sola escritura a Firestore. Cada actualización queda antes en el outbox (estado DEFERRED), así que una
+// caída del nodo no la pierde, y las lecturas de este nodo ven el último valor aceptado.
+@Service
+public class ServicioEscrituraDiferida {
+    private static final Logger logger = LoggerFactory.getLogger(ServicioEscrituraDiferida.class);
+
+    public static final String METRICA_AGRUPADAS = "personas.escrituras.agrupadas";
+
+    @Autowired
+    private RepositorioPersonas repositorioPersonas;
+
+    @Autowired
+    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+
+    @Autowired
+    private ServicioOperaciones servicioOperaciones;
+
+    @Autowired
+    private CoordinadorParticiones coordinadorParticiones;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlazosFirestore plazosFirestore;
+
+    @Autowired
+    private AgrupadorLecturas agrupadorLecturas;
+
+    @Value("${escritura-diferida.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${escritura-diferida.ventana-ms:300}")
+    private long ventanaMs;
+
+    @Value("${escritura-diferida.recuperacion-ms:60000}")
+    private long recuperacionMs;
+
+    private final ScheduledExecutorService planificador = Executors.newScheduledThreadPool(4);
+
+    // Actualizaciones aceptadas que esperan el fin de su ventana
+    private final MapaRut<Acumulado> acumulados = new MapaRut<>();
+
+    // Valores ya despachados a Firestore cuya escritura no ha terminado (para no perder lectura-de-lo-escrito)
+    private final MapaRut<Persona> enVuelo = new MapaRut<>();
+
+    private volatile boolean cerrando;
+
+    private static class Acumulado {
+        private OperacionPendiente operacion;
+        private Persona persona;
+        private boolean cerrado;
+    }
+
+    public boolean estaHabilitada() {
+        return habilitada;
+    }
+
+    public ResultadoEscritura encolar(Rut rut, Persona persona) throws Exception {
+        String datos = objectMapper.writeValueAsString(persona);
+        while (true) {
+            Acumulado acumulado;
+            synchronized (acumulados) {
+                acumulado = acumulados.get(rut);
+                if (acumulado == null) {
+                    acumulado = new Acumulado();
+                    acumulados.put(rut, acumulado);
+                }
+            }
+            synchronized (acumulado) {
+                if (acumulado.cerrado) {
+                    // La ventana se cerró entre la búsqueda y el bloqueo: abrir una nueva
+                    continue;
+                }
+                try {
+                    if (acumulado.operacion == null) {
+                        OperacionPendiente operacion = new OperacionPendiente();
+                        operacion.setRut(rut.toString());
+                        operacion.setTipoOperacion("ACTUALIZAR");
+                        operacion.setDatos(datos);
+                        operacion.setParticion(coordinadorParticiones.particionDe(rut.toString()));
+                        acumulado.operacion = servicioOperaciones.registrar(operacion, EstadoOperacion.DEFERRED);
+                        Acumulado programado = acumulado;
+                        planificador.schedule(DecoradorMdc.envolver(() -> vaciar(rut, programado)), ventanaMs, TimeUnit.MILLISECONDS);
+                        logger.debug("Actualización diferida abierta para RUT: {} - operación {}", rut, acumulado.operacion.getId());
+                    } else {
+                        Instant ahora = Instant.now();
+                        if (repositorioOperacionesPendientes.fundirDiferida(acumulado.operacion.getId(), datos, ahora) == 0) {
+                            // La fila ya no es DEFERRED (la recuperación de huérfanas la pasó al outbox): esta ventana
+                            // queda cerrada con lo que ya tenía y la actualización abre una nueva detrás de ella
+                            logger.info("Operación {} de RUT: {} ya no es diferida - Se abre una nueva ventana", acumulado.operacion.getId(), rut);
+                            cerrarVentana(rut, acumulado);
+                            continue;
+                        }
+                        acumulado.operacion.setDatos(datos);
+                        acumulado.operacion.setActualizadoEn(ahora);
+                        meterRegistry.counter(METRICA_AGRUPADAS).increment();
+                        logger.debug("Actualización agrupada para RUT: {} - operación {}", rut, acumulado.operacion.getId());
+                    }
+                } catch (RuntimeException e) {
+                    if (acumulado.operacion == null) {
+                        cerrarVentana(rut, acumulado);
+                    }
+                    throw e;
+                }
+                acumulado.persona = persona;
+                return ResultadoEscritura.pendiente(new EstadoOperacionDTO(acumulado.operacion));
+            }
+        }
+    }
+
+    // Con el monitor del acumulado tomado
+    private void cerrarVentana(Rut rut, Acumulado acumulado) {
+        acumulado.cerrado = true;
+        synchronized (acumulados) {
+            if (acumulados.get(rut) == acumulado) {
+                acumulados.remove(rut);
+            }
+        }
+    }
+
+    // Último valor aceptado para el RUT que aún no está confirmado en Firestore, o null
+    public Persona leer(Rut rut) {
+        if (!habilitada) {
+            return null;
+        }
+        Acumulado acumulado;
+        synchronized (acumulados) {
+            acumulado = acumulados.get(rut);
+        }
+        if (acumulado != null) {
+            synchronized (acumulado) {
+                if (!acumulado.cerrado && acumulado.persona != null) {
+                    return acumulado.persona;
+                }
+            }
+        }
+        synchronized (enVuelo) {
+            return enVuelo.get(rut);
+        }
+    }
+
+    public List<Persona> superponer(List<Persona> personas) {
+        if (!habilitada) {
+            return personas;
+        }
+        synchronized (acumulados) {
+            synchronized (enVuelo) {
+                if (acumulados.isEmpty() && enVuelo.isEmpty()) {
+                    return personas;
+                }
+            }
+        }
+        List<Persona> resultado = new ArrayList<>(personas.size());
+        for (Persona persona : personas) {
+            Rut rut = Rut.parsear(persona.getRut());
+            Persona diferida = rut != null ? leer(rut) : null;
+            resultado.add(diferida != null ? diferida : persona);
+        }
+        return resultado;
+    }
+
+    // Aplica de inmediato lo acumulado para el RUT (por ejemplo, antes de eliminarlo) para no alterar el orden.
+    // Espera antes a la escritura en curso del RUT, acotada por el plazo de escritura: así la ventana abierta se vacía
+    // directo en vez de quedar reprogramada, y al volver no queda nada del RUT en vuelo ni en memoria. Si algo pasó al
+    // outbox, el llamador lo ve en tieneSinAplicar y encola detrás.
+    public void vaciarAhora(Rut rut) throws InterruptedException {
+        if (!habilitada) {
+            return;
+        }
+        esperarEnVuelo(rut);
+        Acumulado acumulado;
+        synchronized (acumulados) {
+            acumulado = acumulados.get(rut);
+        }
+        if (acumulado != null) {
+            vaciar(rut, acumulado);
+        }
+        // Un vaciado programado pudo tomar la ventana justo antes
+        esperarEnVuelo(rut);
+    }
+
+    private void esperarEnVuelo(Rut rut) throws InterruptedException {
+        synchronized (enVuelo) {
+            while (enVuelo.containsKey(rut)) {
+                enVuelo.wait();
+            }
+        }
+    }
+
+    private void vaciar(Rut rut, Acumulado acumulado) {
+        Persona persona;
+        OperacionPendiente operacion;
+        synchronized (acumulado) {
+            if (acumulado.cerrado) {
+                return;
+            }
+            synchronized (enVuelo) {
+                // La escritura de una ventana anterior del RUT sigue en curso: enviar otra en paralelo dejaría el orden
+                // en manos de Firestore. La ventana sigue abierta (acumulando) y se reintenta tras otra ventana.
+                if (enVuelo.containsKey(rut) && !cerrando) {
+                    planificador.schedule(DecoradorMdc.envolver(() -> vaciar(rut, acumulado)), ventanaMs, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                acumulado.cerrado = true;
+                persona = acumulado.persona;
+                operacion = acumulado.operacion;
+                enVuelo.put(rut, persona);
+            }
+        }
+        synchronized (acumulados) {
+            if (acumulados.get(rut) == acumulado) {
+                acumulados.remove(rut);
+            }
+        }
+        try {
+            // Operaciones anteriores del mismo RUT sin aplicar (en el outbox o en una escritura diferida aún en curso,
+            // por ejemplo al cerrar el nodo) van primero: esta pasa al outbox y el sincronizador respeta el orden
+            if (!repositorioPersonas.estaDisponible()
+                    || repositorioOperacionesPendientes.existsByRutAndEstadoInAndIdLessThan(rut.toString(),
+                    List.of(EstadoOperacion.PENDING, EstadoOperacion.DEFERRED), operacion.getId())) {
+                logger.info("Actualización diferida de RUT: {} pasa al outbox - operación {}", rut, operacion.getId());
+                servicioOperaciones.marcar(operacion, EstadoOperacion.PENDING, null);
+                return;
+            }
+            plazosFirestore.esperarEscritura(repositorioPersonas.actualizar(persona));
+            agrupadorLecturas.invalidar(rut);
+            servicioOperaciones.marcar(operacion, EstadoOperacion.APPLIED, null);
+            logger.info("Actualización diferida aplicada - RUT: {}, operación {}", rut, operacion.getId());
+        } catch (TimeoutException e) {
+            logger.warn("Actualización diferida sin respuesta dentro del plazo - RUT: {}. Pasa al outbox.", rut);
+            servicioOperaciones.marcar(operacion, EstadoOperacion.PENDING, null);
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.NOT_FOUND)) {
+                logger.info("Persona no encontrada para actualización diferida - RUT: {}. Pasa a la cola de fallidas.", rut);
+                servicioOperaciones.moverAFallidas(operacion, "Persona no encontrada");
+                return;
+            }
+            repositorioPersonas.reportarError(e);
+            logger.warn("Error al aplicar actualización diferida - RUT: {}. Pasa al outbox: {}", rut, e.getMessage());
+            servicioOperaciones.marcar(operacion, EstadoOperacion.PENDING, null);
+        } catch (Exception e) {
+            logger.error("Error al vaciar actualización diferida - RUT: {}, operación {}: {}", rut, operacion.getId(), e.getMessage());
+            servicioOperaciones.marcar(operacion, EstadoOperacion.PENDING, null);
+        } finally {
+            synchronized (enVuelo) {
+                if (enVuelo.get(rut) == persona) {
+                    enVuelo.remove(rut);
+                }
+                enVuelo.notifyAll();
+            }
+        }
+    }
+
+    // Filas DEFERRED de un nodo que cayó antes de vaciarlas: pasan al sincronizador
+    @Scheduled(fixedDelayString = "${escritura-diferida.recuperacion-ms:60000}")
+    public void recuperarHuerfanas() {
+        int recuperadas = repositorioOperacionesPendientes.reactivarDiferidasAnterioresA(Instant.now().minusMillis(recuperacionMs));
+        if (recuperadas > 0) {
+            logger.info("Actualizaciones diferidas huérfanas devueltas al outbox: {}", recuperadas);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cerrando = true;
+        List<Rut> ruts = new ArrayList<>();
+        List<Acumulado> abiertos = new ArrayList<>();
+        synchronized (acumulados) {
+            acumulados.forEach((rut, acumulado) -> {
+                ruts.add(rut);
+                abiertos.add(acumulado);
+            });
+        }
+        for (int i = 0; i < ruts.size(); i++) {
+            vaciar(ruts.get(i), abiertos.get(i));
+        }
+        planificador.shutdownNow();
+    }
+}
@@ -0,0 +1,196 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.dto.PersonaResponseDTO;
+import cl.desafio_tecnico.crud_persona.dto.PuntoControlExportacion;
+import cl.desafio_tecnico.crud_persona.model.Direccion;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// Exporta toda la colección en paralelo por rangos de RUT, a un archivo gzip (NDJSON o CSV) por partición.
+// Cada página se escribe como un miembro gzip independiente y el punto de control guarda el largo de cada archivo,
+// así una exportación interrumpida se retoma truncando al último punto confirmado, sin duplicados.
+@Service
+public class ServicioExportacion {
+    private static final Logger logger = LoggerFactory.getLogger(ServicioExportacion.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+    private static final String ARCHIVO_CONTROL = "checkpoint.json";
+
+    @Autowired
+    private RepositorioPersonas repositorioPersonas;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlazosFirestore plazosFirestore;
+
+    @Value("${exportar.tamano-pagina:500}")
+    private int tamanoPagina;
+
+    @Value("${exportar.progreso-ms:10000}")
+    private long progresoMs;
+
+    public long exportar(Path destino, String formato, int particiones, int hilos) throws Exception {
+        if (!NDJSON.equals(formato) && !CSV.equals(formato)) {
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + formato);
+        }
+        Files.createDirectories(destino);
+        Path archivoControl = destino.resolve(ARCHIVO_CONTROL);
+        PuntoControlExportacion control;
+        if (Files.exists(archivoControl)) {
+            control = objectMapper.readValue(archivoControl.toFile(), PuntoControlExportacion.class);
+            if (!formato.equals(control.getFormato())) {
+                throw new IllegalArgumentException("El punto de control existente es de formato " + control.getFormato());
+            }
+            logger.info("Retomando exportación en {} - {} de {} particiones completas",
+                    destino, control.getCompletas().size(), control.getCortes().size() + 1);
+        } else {
+            control = new PuntoControlExportacion();
+            control.setFormato(formato);
+            control.setCortes(repositorioPersonas.puntosDeCorte(particiones).get());
+            guardarControl(archivoControl, control);
+            logger.info("Iniciando exportación en {} - {} particiones, formato {}", destino, control.getCortes().size() + 1, formato);
+        }
+
+        int totalParticiones = control.getCortes().size() + 1;
+        AtomicLong exportadas = new AtomicLong(control.getExportadas().values().stream().mapToLong(Long::longValue).sum());
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, hilos));
+        ScheduledExecutorService progreso = Executors.newSingleThreadScheduledExecutor();
+        progreso.scheduleAtFixedRate(() -> logger.info("Exportación en curso - {} personas, {}/{} particiones completas",
+                exportadas.get(), control.getCompletas().size(), totalParticiones), progresoMs, progresoMs, TimeUnit.MILLISECONDS);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int particion = 0; particion < totalParticiones; particion++) {
+                if (control.getCompletas().contains(particion)) {
+                    continue;
+                }
+                int actual = particion;
+                tareas.add(ejecutor.submit(() -> {
+                    exportarParticion(destino, archivoControl, control, actual, exportadas);
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            progreso.shutdownNow();
+            ejecutor.shutdownNow();
+        }
+        logger.info("Exportación completada en {} - {} personas en {} particiones", destino, exportadas.get(), totalParticiones);
+        return exportadas.get();
+    }
+
+    private void exportarParticion(Path destino, Path archivoControl, PuntoControlExportacion control, int particion,
+                                   AtomicLong exportadas) throws Exception {
+        List<String> cortes = control.getCortes();
+        String hasta = particion < cortes.size() ? cortes.get(particion) : null;
+        Path archivo = destino.resolve(String.format("personas-%04d.%s.gz", particion, control.getFormato()));
+        String desde;
+        long largo;
+        synchronized (control) {
+            desde = control.getUltimoRut().getOrDefault(particion, particion == 0 ? null : cortes.get(particion - 1));
+            largo = control.getBytes().getOrDefault(particion, 0L);
+        }
+        // Descarta lo escrito después del último punto de control confirmado
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            canal.truncate(largo);
+        }
+        SimpleDateFormat formatoFecha = new SimpleDateFormat("dd-MM-yyyy");
+        boolean encabezado = CSV.equals(control.getFormato()) && largo == 0;
+
+        while (true) {
+            String desdePagina = desde;
+            List<Persona> pagina = plazosFirestore.esperarLectura(plazosFirestore.cubrir("pagina",
+                    () -> repositorioPersonas.pagina(desdePagina, hasta, tamanoPagina)));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            try (BufferedWriter escritor = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    Files.newOutputStream(archivo, StandardOpenOption.APPEND)), StandardCharsets.UTF_8))) {
+                if (encabezado) {
+                    escritor.write("rut,nombre,apellido,fechaNacimiento,calle,comuna,region\n");
+                    encabezado = false;
+                }
+                for (Persona persona : pagina) {
+                    escritor.write(NDJSON.equals(control.getFormato())
+                            ? objectMapper.writeValueAsString(new PersonaResponseDTO(persona))
+                            : filaCsv(persona, formatoFecha));
+                    escritor.write('\n');
+                }
+            }
+            desde = pagina.get(pagina.size() - 1).getRut();
+            exportadas.addAndGet(pagina.size());
+            synchronized (control) {
+                control.getUltimoRut().put(particion, desde);
+                control.getBytes().put(particion, Files.size(archivo));
+                control.getExportadas().merge(particion, (long) pagina.size(), Long::sum);
+                guardarControl(archivoControl, control);
+            }
+            if (pagina.size() < tamanoPagina) {
+                break;
+            }
+        }
+        synchronized (control) {
+            control.getCompletas().add(particion);
+            guardarControl(archivoControl, control);
+        }
+        logger.info("Partición {} exportada - {} personas", particion, control.getExportadas().getOrDefault(particion, 0L));
+    }
+
+    private void guardarControl(Path archivoControl, PuntoControlExportacion control) throws IOException {
+        Path temporal = archivoControl.resolveSibling(ARCHIVO_CONTROL + ".tmp");
+        objectMapper.writeValue(temporal.toFile(), control);
+        Files.move(temporal, archivoControl, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String filaCsv(Persona persona, SimpleDateFormat formatoFecha) {
+        Direccion direccion = persona.getDireccion();
+        return String.join(",",
+                campoCsv(persona.getRut()),
+                campoCsv(persona.getNombre()),
+                campoCsv(persona.getApellido()),
+                campoCsv(persona.getFechaNacimiento() == null ? null : formatoFecha.format(persona.getFechaNacimiento().toDate())),
+                campoCsv(direccion == null ? null : direccion.getCalle()),
+                campoCsv(direccion == null ? null : direccion.getComuna()),
+                campoCsv(direccion == null ? null : direccion.getRegion()));
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,201 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
+import cl.desafio_tecnico.crud_persona.exception.ExcepcionClaveIdempotenciaReutilizada;
+import cl.desafio_tecnico.crud_persona.exception.ExcepcionIdempotenciaEnCurso;
+import cl.desafio_tecnico.crud_persona.model.RegistroIdempotencia;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioRegistrosIdempotencia;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Deduplica escrituras reintentadas con Idempotency-Key: caché LRU acotada + respaldo en H2, con expiración por TTL
+@Service
+public class ServicioIdempotencia {
+    private static final Logger logger = LoggerFactory.getLogger(ServicioIdempotencia.class);
+
+    public static final String CABECERA = "Idempotency-Key";
+    private static final int LARGO_MAXIMO_CLAVE = 255;
+
+    @Autowired
+    private RepositorioRegistrosIdempotencia repositorioRegistrosIdempotencia;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotencia.ttl-segundos:86400}")
+    private long ttlSegundos;
+
+    @Value("${idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    // Debe superar el plazo de escritura a Firestore: es lo que puede tardar la solicitud original
+    @Value("${idempotencia.espera-en-curso-ms:10000}")
+    private long esperaEnCursoMs;
+
+    private final Map<String, RegistroIdempotencia> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RegistroIdempotencia> eldest) {
+                    return size() > maxEntradas;
+                }
+            });
+
+    private final Map<String, EnCurso> enCurso = new ConcurrentHashMap<>();
+
+    private record EnCurso(String huella, CompletableFuture<RegistroIdempotencia> resultado) {
+    }
+
+    // 'solicitud' es el cuerpo ya normalizado (o null): una clave reutilizada con otro cuerpo se rechaza en vez de reproducir
+    public ResponseEntity<?> ejecutar(String clave, String operacion, Object solicitud, Class<?> tipo, Callable<ResponseEntity<?>> accion) throws Exception {
+        if (clave == null || clave.isBlank()) {
+            return accion.call();
+        }
+        if (clave.length() > LARGO_MAXIMO_CLAVE) {
+            logger.info("Clave de idempotencia demasiado larga para operación {}", operacion);
+            throw new ConstraintViolationException(CABECERA + " inválida", null);
+        }
+        String id = operacion + " " + clave;
+        String huella = huella(solicitud);
+
+        while (true) {
+            RegistroIdempotencia previo = buscar(id);
+            if (previo != null) {
+                return reproducir(previo, huella, tipo);
+            }
+
+            EnCurso propio = new EnCurso(huella, new CompletableFuture<>());
+            EnCurso existente = enCurso.putIfAbsent(id, propio);
+            if (existente == null) {
+                return ejecutarPropia(id, huella, tipo, propio, accion);
+            }
+            comprobarHuella(existente.huella(), huella, operacion);
+            logger.info("Solicitud idempotente en curso, esperando resultado original - {}", operacion);
+            RegistroIdempotencia original;
+            try {
+                original = existente.resultado().get(esperaEnCursoMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new ExcepcionIdempotenciaEnCurso("La solicitud original con esta " + CABECERA + " sigue en curso, reintente más tarde");
+            }
+            if (original != null) {
+                return reproducir(original, huella, tipo);
+            }
+            // La solicitud original falló sin respuesta que reproducir: se vuelve a reservar la clave antes de ejecutar
+            logger.info("Solicitud idempotente original falló, reintentando con la misma clave - {}", operacion);
+        }
+    }
+
+    private ResponseEntity<?> ejecutarPropia(String id, String huella, Class<?> tipo, EnCurso propio, Callable<ResponseEntity<?>> accion) throws Exception {
+        RegistroIdempotencia registro = null;
+        try {
+            RegistroIdempotencia previo = buscar(id);
+            if (previo != null) {
+                registro = previo;
+                return reproducir(previo, huella, tipo);
+            }
+            ResponseEntity<?> respuesta = accion.call();
+            registro = registrar(id, respuesta, huella);
+            return respuesta;
+        } finally {
+            // Se libera la clave antes de despertar a los que esperan, para que un reintento tras un fallo pueda reservarla
+            enCurso.remove(id, propio);
+            propio.resultado().complete(registro);
+        }
+    }
+
+    private String huella(Object solicitud) throws Exception {
+        byte[] cuerpo = solicitud == null ? new byte[0] : objectMapper.writeValueAsString(solicitud).getBytes(StandardCharsets.UTF_8);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+    }
+
+    private static void comprobarHuella(String original, String actual, String operacion) {
+        if (original != null && !original.equals(actual)) {
+            logger.info("Idempotency-Key reutilizada con otro cuerpo - {}", operacion);
+            throw new ExcepcionClaveIdempotenciaReutilizada(CABECERA + " ya usada con un cuerpo de solicitud distinto");
+        }
+    }
+
+    private RegistroIdempotencia buscar(String id) {
+        RegistroIdempotencia registro = cache.get(id);
+        if (registro == null) {
+            registro = repositorioRegistrosIdempotencia.findById(id).orElse(null);
+            if (registro == null) {
+                return null;
+            }
+            cache.put(id, registro);
+        }
+        if (expirado(registro)) {
+            cache.remove(id);
+            return null;
+        }
+        return registro;
+    }
+
+    // La escritura ya se aplicó: un fallo al guardar el registro se registra en el log y no convierte la respuesta en un 500
+    private RegistroIdempotencia registrar(String id, ResponseEntity<?> respuesta, String huella) {
+        RegistroIdempotencia registro;
+        try {
+            registro = new RegistroIdempotencia(id, respuesta.getStatusCode().value(), objectMapper.writeValueAsString(respuesta.getBody()), Instant.now(), huella);
+        } catch (Exception e) {
+            logger.error("No se pudo serializar la respuesta idempotente {}: {}", id, e.getMessage());
+            return null;
+        }
+        cache.put(id, registro);
+        try {
+            repositorioRegistrosIdempotencia.save(registro);
+        } catch (Exception e) {
+            logger.error("No se pudo guardar el registro de idempotencia {} en H2, solo queda en la caché de este nodo: {}", id, e.getMessage());
+        }
+        return registro;
+    }
+
+    private ResponseEntity<?> reproducir(RegistroIdempotencia registro, String huella, Class<?> tipo) throws Exception {
+        comprobarHuella(registro.getHuella(), huella, registro.getClave());
+        logger.info("Reproduciendo respuesta idempotente - {}", registro.getClave());
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.status(registro.getEstadoHttp())
+                .header("Idempotent-Replayed", "true");
+        // Un 202 se reproduce con el mismo id de operación, que el cliente puede seguir consultando
+        if (registro.getEstadoHttp() == HttpStatus.ACCEPTED.value()) {
+            EstadoOperacionDTO operacion = objectMapper.readValue(registro.getCuerpo(), EstadoOperacionDTO.class);
+            return respuesta.location(ServicioOperaciones.ubicacion(operacion.getId())).body(operacion);
+        }
+        return respuesta.body(objectMapper.readValue(registro.getCuerpo(), tipo));
+    }
+
+    private boolean expirado(RegistroIdempotencia registro) {
+        return registro.getCreadoEn().plus(Duration.ofSeconds(ttlSegundos)).isBefore(Instant.now());
+    }
+
+    @Scheduled(fixedRateString = "${idempotencia.purga-ms:3600000}")
+    public void purgarExpirados() {
+        Instant limite = Instant.now().minusSeconds(ttlSegundos);
+        int eliminados = repositorioRegistrosIdempotencia.eliminarAnterioresA(limite);
+        synchronized (cache) {
+            cache.values().removeIf(this::expirado);
+        }
+        if (eliminados > 0) {
+            logger.info("Registros de idempotencia expirados eliminados: {}", eliminados);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import cl.desafio_tecnico.crud_persona.util.UtilidadesFirestore;
+import com.google.api.gax.rpc.StatusCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+// Migración única de los documentos creados antes del RUT canónico: "19.911.121-3" pasa a "19911121-3".
+// Recorre la colección por páginas ordenadas por id; se puede relanzar, los documentos ya canónicos se saltan.
+@Service
+public class ServicioMigracionRuts {
+    private static final Logger logger = LoggerFactory.getLogger(ServicioMigracionRuts.class);
+
+    @Autowired
+    private RepositorioPersonas repositorioPersonas;
+
+    @Autowired
+    private PlazosFirestore plazosFirestore;
+
+    @Value("${exportar.tamano-pagina:500}")
+    private int tamanoPagina;
+
+    // Devuelve la cantidad de documentos que quedaron sin migrar (conflictos o RUT inválido)
+    public long migrar() throws Exception {
+        long revisados = 0;
+        long migrados = 0;
+        long sinMigrar = 0;
+        String desde = null;
+        while (true) {
+            List<Persona> pagina = plazosFirestore.esperarLectura(repositorioPersonas.pagina(desde, null, tamanoPagina));
+            for (Persona persona : pagina) {
+                revisados++;
+                String idAnterior = persona.getRut();
+                // El cursor es el id original: el documento renombrado puede quedar más adelante y se saltará como canónico
+                desde = idAnterior;
+                Rut rut = Rut.parsear(idAnterior);
+                if (rut == null) {
+                    logger.warn("Documento con RUT inválido, se deja sin migrar: {}", idAnterior);
+                    sinMigrar++;
+                    continue;
+                }
+                if (rut.toString().equals(idAnterior)) {
+                    continue;
+                }
+                persona.setRut(rut.toString());
+                try {
+                    plazosFirestore.esperarEscritura(repositorioPersonas.renombrar(idAnterior, persona));
+                    migrados++;
+                    logger.info("Documento {} migrado a {}", idAnterior, rut);
+                } catch (ExecutionException e) {
+                    if (!UtilidadesFirestore.esCodigo(e, StatusCode.Code.ALREADY_EXISTS)) {
+                        throw e;
+                    }
+                    // Duplicado creado con la forma canónica después del cambio: requiere decidir a mano cuál conservar
+                    logger.warn("Ya existe {} - El documento {} queda sin migrar para revisión manual", rut, idAnterior);
+                    sinMigrar++;
+                }
+            }
+            if (pagina.size() < tamanoPagina) {
+                break;
+            }
+        }
+        logger.info("Migración de RUT completada - Revisados: {}, Migrados: {}, Sin migrar: {}", revisados, migrados, sinMigrar);
+        return sinMigrar;
+    }
+}
@@ -0,0 +1,269 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionFallida;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesFallidas;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estado de las escrituras guardadas en el outbox: consulta por id y espera larga hasta que el sincronizador las aplique
+@Service
+public class ServicioOperaciones {
+    private static final Logger logger = LoggerFactory.getLogger(ServicioOperaciones.class);
+
+    @Autowired
+    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+
+    @Autowired
+    private RepositorioOperacionesFallidas repositorioOperacionesFallidas;
+
+    @Autowired
+    private CoordinadorParticiones coordinadorParticiones;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${operaciones.espera-maxima-segundos:60}")
+    private long esperaMaximaSegundos;
+
+    @Value("${operaciones.retencion-segundos:86400}")
+    private long retencionSegundos;
+
+    private final Map<Long, List<DeferredResult<EstadoOperacionDTO>>> esperas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        int migradas = repositorioOperacionesPendientes.marcarSinEstadoComoPendientes();
+        if (migradas > 0) {
+            logger.info("Operaciones pendientes sin estado marcadas como PENDING: {}", migradas);
+        }
+        normalizarRuts();
+    }
+
+    // Operaciones encoladas antes del RUT canónico: se reescriben a la forma canónica (y su partición) para que
+    // el sincronizador no vuelva a crear documentos con el id anterior ni las aplique fuera de orden
+    private void normalizarRuts() {
+        List<OperacionPendiente> normalizadas = new ArrayList<>();
+        for (OperacionPendiente operacion : repositorioOperacionesPendientes.findByEstadoIn(List.of(EstadoOperacion.PENDING, EstadoOperacion.DEFERRED))) {
+            Rut rut = Rut.parsear(operacion.getRut());
+            if (rut == null || rut.toString().equals(operacion.getRut())) {
+                continue;
+            }
+            try {
+                if (operacion.getDatos() != null && objectMapper.readTree(operacion.getDatos()) instanceof ObjectNode datos && datos.has("rut")) {
+                    datos.put("rut", rut.toString());
+                    operacion.setDatos(objectMapper.writeValueAsString(datos));
+                }
+            } catch (Exception e) {
+                logger.warn("Datos ilegibles en operación {} - Se normaliza solo el RUT: {}", operacion.getId(), e.getMessage());
+            }
+            operacion.setRut(rut.toString());
+            operacion.setParticion(coordinadorParticiones.particionDe(rut.toString()));
+            normalizadas.add(operacion);
+        }
+        if (!normalizadas.isEmpty()) {
+            repositorioOperacionesPendientes.saveAll(normalizadas);
+            logger.info("Operaciones pendientes normalizadas al RUT canónico: {}", normalizadas.size());
+        }
+    }
+
+    public static ResponseEntity<EstadoOperacionDTO> aceptada(EstadoOperacionDTO operacion) {
+        return ResponseEntity.accepted().location(ubicacion(operacion.getId())).body(operacion);
+    }
+
+    public static URI ubicacion(Long id) {
+        return URI.create("/operaciones/" + id);
+    }
+
+    // Operaciones del RUT que siguen sin aplicarse; una escritura directa no debe adelantarlas
+    public boolean tieneSinAplicar(String rut) {
+        return repositorioOperacionesPendientes.existsByRutAndEstadoIn(rut, List.of(EstadoOperacion.PENDING, EstadoOperacion.DEFERRED));
+    }
+
+    public OperacionPendiente registrar(OperacionPendiente operacion, EstadoOperacion estado) {
+        operacion.setEstado(estado);
+        operacion.setActualizadoEn(Instant.now());
+        return repositorioOperacionesPendientes.save(operacion);
+    }
+
+    public void marcar(OperacionPendiente operacion, EstadoOperacion estado, String detalle) {
+        operacion.setEstado(estado);
+        operacion.setDetalle(detalle);
+        operacion.setActualizadoEn(Instant.now());
+        repositorioOperacionesPendientes.save(operacion);
+        if (estado.esTerminal()) {
+            notificar(operacion.getId(), new EstadoOperacionDTO(operacion));
+        }
+    }
+
+    // Saca la operación del outbox hacia la cola de fallidas; conserva su id para la consulta y el reintento
+    @Transactional
+    public void moverAFallidas(OperacionPendiente operacion, String error) {
+        OperacionFallida fallida = new OperacionFallida();
+        fallida.setId(operacion.getId());
+        fallida.setRut(operacion.getRut());
+        fallida.setTipoOperacion(operacion.getTipoOperacion());
+        fallida.setDatos(operacion.getDatos());
+        fallida.setParticion(operacion.getParticion());
+        fallida.setIntentos(operacion.getIntentos() != null ? operacion.getIntentos() : 0);
+        fallida.setUltimoError(recortar(error));
+        fallida.setFallidaEn(Instant.now());
+        repositorioOperacionesFallidas.save(fallida);
+        repositorioOperacionesPendientes.delete(operacion);
+        notificar(fallida.getId(), new EstadoOperacionDTO(fallida));
+    }
+
+    public EstadoOperacionDTO consultar(Long id) {
+        return repositorioOperacionesPendientes.findById(id)
+                .map(EstadoOperacionDTO::new)
+                .orElseGet(() -> consultarFallida(id));
+    }
+
+    // Una fallida ya reintentada responde con el estado de la operación que la reemplazó
+    private EstadoOperacionDTO consultarFallida(Long id) {
+        OperacionFallida fallida = repositorioOperacionesFallidas.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Operación no encontrada"));
+        if (fallida.getReintentadaComo() != null) {
+            return consultar(fallida.getReintentadaComo());
+        }
+        return new EstadoOperacionDTO(fallida);
+    }
+
+    public List<EstadoOperacionDTO> listarFallidas(int limite) {
+        return repositorioOperacionesFallidas.findByReintentadaComoIsNullOrderByIdAsc(PageRequest.of(0, Math.max(1, Math.min(limite, 500))))
+                .stream()
+                .map(EstadoOperacionDTO::new)
+                .toList();
+    }
+
+    // Devuelve la operación al outbox como una nueva PENDING con los intentos en cero. Reintentar dos veces la misma
+    // fallida no duplica la escritura: la fila queda bloqueada hasta el commit y el segundo reintento responde con
+    // la operación creada por el primero.
+    @Transactional
+    public EstadoOperacionDTO reintentar(Long id) {
+        OperacionFallida fallida = repositorioOperacionesFallidas.bloquearPorId(id)
+                .orElseThrow(() -> new IllegalArgumentException("Operación fallida no encontrada"));
+        if (fallida.getReintentadaComo() != null) {
+            return consultar(fallida.getReintentadaComo());
+        }
+        OperacionPendiente operacion = new OperacionPendiente();
+        operacion.setRut(fallida.getRut());
+        operacion.setTipoOperacion(fallida.getTipoOperacion());
+        operacion.setDatos(fallida.getDatos());
+        operacion.setParticion(fallida.getParticion());
+        operacion = registrar(operacion, EstadoOperacion.PENDING);
+        fallida.setReintentadaComo(operacion.getId());
+        repositorioOperacionesFallidas.save(fallida);
+        logger.info("Operación fallida {} reintentada como operación {} - RUT: {}", id, operacion.getId(), fallida.getRut());
+        return new EstadoOperacionDTO(operacion);
+    }
+
+    // Responde en cuanto la operación deja de estar PENDING o al cumplirse el plazo, con el estado vigente
+    public DeferredResult<EstadoOperacionDTO> esperar(Long id, long segundos) {
+        EstadoOperacionDTO actual = consultar(id);
+        long plazoMs = Math.min(Math.max(segundos, 0), esperaMaximaSegundos) * 1000;
+        if (actual.getEstado().esTerminal() || plazoMs == 0) {
+            DeferredResult<EstadoOperacionDTO> inmediato = new DeferredResult<>();
+            inmediato.setResult(actual);
+            return inmediato;
+        }
+        DeferredResult<EstadoOperacionDTO> resultado = new DeferredResult<>(plazoMs);
+        resultado.onTimeout(() -> {
+            try {
+                resultado.setResult(consultar(id));
+            } catch (IllegalArgumentException e) {
+                resultado.setResult(actual);
+            }
+        });
+        resultado.onCompletion(() -> esperas.computeIfPresent(id, (clave, lista) -> {
+            lista.remove(resultado);
+            return lista.isEmpty() ? null : lista;
+        }));
+        esperas.compute(id, (clave, lista) -> {
+            List<DeferredResult<EstadoOperacionDTO>> nueva = lista != null ? lista : new ArrayList<>();
+            nueva.add(resultado);
+            return nueva;
+        });
+        // La operación pudo aplicarse entre la consulta y el registro de la espera
+        EstadoOperacionDTO reciente = consultar(id);
+        if (reciente.getEstado().esTerminal()) {
+            resultado.setResult(reciente);
+        }
+        return resultado;
+    }
+
+    private void notificar(Long id, EstadoOperacionDTO estado) {
+        List<DeferredResult<EstadoOperacionDTO>> lista = esperas.remove(id);
+        if (lista != null) {
+            lista.forEach(espera -> espera.setResult(estado));
+        }
+    }
+
+    // Las operaciones que aplica el sincronizador de otro nodo no pasan por notificar(): se revisan en la base.
+    // Las que ya no están en el outbox se buscan en la cola de fallidas.
+    @Scheduled(fixedDelayString = "${operaciones.revision-ms:1000}")
+    public void revisarEsperas() {
+        if (esperas.isEmpty()) {
+            return;
+        }
+        Set<Long> ausentes = new HashSet<>(esperas.keySet());
+        for (OperacionPendiente operacion : repositorioOperacionesPendientes.findAllById(new ArrayList<>(ausentes))) {
+            ausentes.remove(operacion.getId());
+            if (operacion.getEstado() != null && operacion.getEstado().esTerminal()) {
+                notificar(operacion.getId(), new EstadoOperacionDTO(operacion));
+            }
+        }
+        for (Long id : ausentes) {
+            try {
+                EstadoOperacionDTO estado = consultarFallida(id);
+                if (estado.getEstado().esTerminal()) {
+                    notificar(id, estado);
+                }
+            } catch (IllegalArgumentException e) {
+                // Eliminada por la purga: la espera termina por plazo
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${operaciones.purga-ms:3600000}")
+    public void purgarTerminadas() {
+        // FAILED solo queda en filas anteriores a la cola de fallidas
+        int eliminadas = repositorioOperacionesPendientes.eliminarTerminadasAnterioresA(
+                List.of(EstadoOperacion.APPLIED, EstadoOperacion.FAILED), Instant.now().minusSeconds(retencionSegundos));
+        if (eliminadas > 0) {
+            logger.info("Operaciones terminadas eliminadas del outbox: {}", eliminadas);
+        }
+        int reintentadas = repositorioOperacionesFallidas.eliminarReintentadasAnterioresA(Instant.now().minusSeconds(retencionSegundos));
+        if (reintentadas > 0) {
+            logger.info("Operaciones fallidas ya reintentadas eliminadas de la cola: {}", reintentadas);
+        }
+    }
+
+    private static String recortar(String texto) {
+        return texto != null && texto.length() > 1000 ? texto.substring(0, 1000) : texto;
+    }
+}
@@ -1,218 +1,217 @@
 package cl.desafio_tecnico.crud_persona.service;
 
-import cl.desafio_tecnico.crud_persona.config.ConfiguracionFirebase;
+import cl.desafio_tecnico.crud_persona.dto.EstadoOperacionDTO;
 import cl.desafio_tecnico.crud_persona.dto.PersonaResponseDTO;
+import cl.desafio_tecnico.crud_persona.dto.ResultadoEscritura;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionFirestoreNoDisponible;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionRutDuplicado;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionRutInmutable;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
 import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
 import cl.desafio_tecnico.crud_persona.model.Persona;
-import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
-import cl.desafio_tecnico.crud_persona.validator.ValidadorRut;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import cl.desafio_tecnico.crud_persona.util.UtilidadesFirestore;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.cloud.firestore.Firestore;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import com.google.firebase.cloud.FirestoreClient;
-import com.google.auth.oauth2.GoogleCredentials;
+import com.google.api.gax.rpc.StatusCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ServicioPersonas {
     private static final Logger logger = LoggerFactory.getLogger(ServicioPersonas.class);
 
-    @Autowired(required = false)
-    private Firestore firestore;
-
     @Autowired
-    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+    private RepositorioPersonas repositorioPersonas;
 
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
-    private ConfiguracionFirebase configuracionFirebase;
-
-    private final ValidadorRut validadorRut = new ValidadorRut();
+    private AgrupadorLecturas agrupadorLecturas;
 
-    public Firestore inicializarFirestore() throws IOException {
-        if (firestore != null && configuracionFirebase.estaInicializado()) {
-            logger.info("Firestore ya inicializado, reutilizando instancia.");
-            return firestore;
-        }
+    @Autowired
+    private CoordinadorParticiones coordinadorParticiones;
 
-        InputStream serviceAccount = this.getClass().getClassLoader().getResourceAsStream("serviceAccountKey1.json");
-        if (serviceAccount == null) {
-            logger.info("Archivo de credenciales no encontrado en recursos. Operando en modo offline.");
-            configuracionFirebase.setInicializado(false);
-            return null;
-        }
+    @Autowired
+    private ServicioOperaciones servicioOperaciones;
 
-        FirebaseOptions options = FirebaseOptions.builder()
-                .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                .build();
+    @Autowired
+    private ServicioEscrituraDiferida servicioEscrituraDiferida;
 
-        FirebaseApp firebaseApp;
-        if (FirebaseApp.getApps().isEmpty()) {
-            firebaseApp = FirebaseApp.initializeApp(options);
-        } else {
-            firebaseApp = FirebaseApp.getApps().get(0);
-        }
+    @Autowired
+    private PlazosFirestore plazosFirestore;
+
+    private ResultadoEscritura guardarPendiente(String rut, String tipoOperacion, String datos) {
+        logger.info("Guardando operación pendiente para RUT: {}", rut);
+        OperacionPendiente pendiente = new OperacionPendiente();
+        pendiente.setRut(rut);
+        pendiente.setTipoOperacion(tipoOperacion);
+        pendiente.setDatos(datos);
+        pendiente.setParticion(coordinadorParticiones.particionDe(rut));
+        ResultadoEscritura resultado = ResultadoEscritura.pendiente(
+                new EstadoOperacionDTO(servicioOperaciones.registrar(pendiente, EstadoOperacion.PENDING)));
+        logger.info("Operación {} pendiente GUARDADA en H2 para RUT: {} - id {}", tipoOperacion, rut, resultado.getOperacion().getId());
+        return resultado;
+    }
 
-        firestore = FirestoreClient.getFirestore(firebaseApp);
-        configuracionFirebase.setInicializado(true);
-        configuracionFirebase.setFirestoreInstance(firestore);
-        logger.info("Firestore inicializado correctamente en tiempo de ejecución");
-        return firestore;
+    // Sin respuesta dentro del plazo el resultado es incierto: el outbox la reaplica. Reaplicarla es seguro porque
+    // las escrituras siguientes del mismo RUT quedan detrás de ella en el outbox (ver encolarEnOutbox)
+    private ResultadoEscritura guardarTrasPlazo(String rut, String tipoOperacion, String datos) {
+        logger.warn("Escritura {} sin respuesta de Firestore dentro del plazo - RUT: {}", tipoOperacion, rut);
+        return guardarPendiente(rut, tipoOperacion, datos);
     }
 
-    private boolean isFirestoreDisponible() throws ExcepcionFirestoreNoDisponible, ExecutionException, InterruptedException {
-        if (firestore == null || !configuracionFirebase.estaInicializado()) {
-            throw new ExcepcionFirestoreNoDisponible("Firestore no inicializado");
+    // Con Firestore caído, o con operaciones anteriores del mismo RUT aún en el outbox, la escritura se encola detrás
+    // de ellas: si fuera directa, el sincronizador reaplicaría después la anterior y pisaría esta
+    private boolean encolarEnOutbox(String rut) {
+        if (!repositorioPersonas.estaDisponible()) {
+            logger.info("Firestore no disponible - RUT: {}", rut);
+            return true;
+        }
+        if (servicioOperaciones.tieneSinAplicar(rut)) {
+            logger.info("Operaciones anteriores del RUT {} siguen en el outbox - La escritura se encola detrás", rut);
+            return true;
         }
-        // Prueba mínima para verificar si la base de datos existe
-        firestore.collection("test").document("test").get().get();
-        return true;
+        return false;
     }
 
-    public PersonaResponseDTO crearPersona(Persona persona) throws Exception {
+    public ResultadoEscritura crearPersona(Persona persona) throws Exception {
         logger.info("CREAR PERSONA - Iniciando para RUT: {}", persona.getRut());
-        firestore = inicializarFirestore();
-        if (firestore == null) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", persona.getRut());
-            String personaJson = objectMapper.writeValueAsString(persona);
-            OperacionPendiente pendiente = new OperacionPendiente(null, persona.getRut(), "CREAR", personaJson);
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación crear pendiente GUARDADA en H2 para RUT: {}", persona.getRut());
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        if (!isFirestoreDisponible()) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", persona.getRut());
-            String personaJson = objectMapper.writeValueAsString(persona);
-            OperacionPendiente pendiente = new OperacionPendiente(null, persona.getRut(), "CREAR", personaJson);
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación crear pendiente GUARDADA en H2 para RUT: {}", persona.getRut());
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        boolean existe = firestore.collection("personas").document(persona.getRut()).get().get().exists();
-        if (existe) {
-            logger.info("RUT duplicado - Ya existe: {}", persona.getRut());
-            throw new ExcepcionRutDuplicado("El RUT ya está registrado");
-        }
-        firestore.collection("personas").document(persona.getRut()).set(persona).get();
+        if (encolarEnOutbox(persona.getRut())) {
+            return guardarPendiente(persona.getRut(), "CREAR", objectMapper.writeValueAsString(persona));
+        }
+        try {
+            plazosFirestore.esperarEscritura(repositorioPersonas.crear(persona));
+        } catch (TimeoutException e) {
+            return guardarTrasPlazo(persona.getRut(), "CREAR", objectMapper.writeValueAsString(persona));
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.ALREADY_EXISTS)) {
+                logger.info("RUT duplicado - Ya existe: {}", persona.getRut());
+                throw new ExcepcionRutDuplicado("El RUT ya está registrado");
+            }
+            repositorioPersonas.reportarError(e);
+            if (UtilidadesFirestore.esTransitorio(e)) {
+                return guardarTrasPlazo(persona.getRut(), "CREAR", objectMapper.writeValueAsString(persona));
+            }
+            throw e;
+        }
+        agrupadorLecturas.invalidar(Rut.parsear(persona.getRut()));
         logger.info("Persona creada exitosamente - RUT: {}", persona.getRut());
-        return new PersonaResponseDTO(persona);
+        return ResultadoEscritura.aplicada(new PersonaResponseDTO(persona));
     }
 
-    public PersonaResponseDTO actualizarPersona(String rut, Persona persona) throws Exception {
+    public ResultadoEscritura actualizarPersona(Rut rut, Persona persona) throws Exception {
         logger.info("ACTUALIZAR PERSONA - Iniciando para RUT: {}", rut);
-        if (!rut.equals(persona.getRut())) {
+        if (!rut.toString().equals(persona.getRut())) {
             logger.info("Intento de actualizar RUT de {} a {}. Acción bloqueada.", rut, persona.getRut());
             throw new ExcepcionRutInmutable("No se permite actualizar el RUT de una persona");
         }
-        firestore = inicializarFirestore();
-        if (firestore == null) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", rut);
-            String personaJson = objectMapper.writeValueAsString(persona);
-            OperacionPendiente pendiente = new OperacionPendiente(null, rut, "ACTUALIZAR", personaJson);
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación actualizar pendiente GUARDADA en H2 para RUT: {}", rut);
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        if (!isFirestoreDisponible()) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", rut);
-            String personaJson = objectMapper.writeValueAsString(persona);
-            OperacionPendiente pendiente = new OperacionPendiente(null, rut, "ACTUALIZAR", personaJson);
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación actualizar pendiente GUARDADA en H2 para RUT: {}", rut);
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        boolean existe = firestore.collection("personas").document(rut).get().get().exists();
-        if (!existe) {
-            logger.info("Persona no encontrada para actualizar - RUT: {}", rut);
-            throw new IllegalArgumentException("Persona no encontrada");
-        }
-
-        firestore.collection("personas").document(rut).set(persona).get();
+        if (servicioEscrituraDiferida.estaHabilitada()) {
+            return servicioEscrituraDiferida.encolar(rut, persona);
+        }
+        if (encolarEnOutbox(rut.toString())) {
+            return guardarPendiente(rut.toString(), "ACTUALIZAR", objectMapper.writeValueAsString(persona));
+        }
+        try {
+            plazosFirestore.esperarEscritura(repositorioPersonas.actualizar(persona));
+        } catch (TimeoutException e) {
+            return guardarTrasPlazo(rut.toString(), "ACTUALIZAR", objectMapper.writeValueAsString(persona));
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.NOT_FOUND)) {
+                logger.info("Persona no encontrada para actualizar - RUT: {}", rut);
+                throw new IllegalArgumentException("Persona no encontrada");
+            }
+            repositorioPersonas.reportarError(e);
+            if (UtilidadesFirestore.esTransitorio(e)) {
+                return guardarTrasPlazo(rut.toString(), "ACTUALIZAR", objectMapper.writeValueAsString(persona));
+            }
+            throw e;
+        }
+        agrupadorLecturas.invalidar(rut);
         logger.info("Persona actualizada exitosamente - RUT: {}", rut);
 
-        return new PersonaResponseDTO(persona);
+        return ResultadoEscritura.aplicada(new PersonaResponseDTO(persona));
     }
 
-    public void eliminarPersona(String rut) throws Exception {
+    public ResultadoEscritura eliminarPersona(Rut rut) throws Exception {
         logger.info("ELIMINAR PERSONA - Iniciando para RUT: {}", rut);
-        if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido: {}", rut);
-            throw new ExcepcionRutDuplicado("RUT inválido");
-        }
-        firestore = inicializarFirestore();
-        if (firestore == null) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", rut);
-            OperacionPendiente pendiente = new OperacionPendiente(null, rut, "ELIMINAR", "{}");
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación eliminar pendiente GUARDADA en H2 para RUT: {}", rut);
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        if (!isFirestoreDisponible()) {
-            logger.info("Firestore no disponible - Guardando operación pendiente para RUT: {}", rut);
-            OperacionPendiente pendiente = new OperacionPendiente(null, rut, "ELIMINAR", "{}");
-            repositorioOperacionesPendientes.save(pendiente);
-            logger.info("Operación eliminar pendiente GUARDADA en H2 para RUT: {}", rut);
-            throw new ExcepcionFirestoreNoDisponible("Operación guardada temporalmente");
-        }
-        boolean existe = firestore.collection("personas").document(rut).get().get().exists();
-        if (!existe) {
-            logger.info("Persona no encontrada para eliminar - RUT: {}", rut);
-            throw new IllegalArgumentException("Persona no encontrada");
-        }
-        firestore.collection("personas").document(rut).delete().get();
+        servicioEscrituraDiferida.vaciarAhora(rut);
+        if (encolarEnOutbox(rut.toString())) {
+            return guardarPendiente(rut.toString(), "ELIMINAR", "{}");
+        }
+        try {
+            plazosFirestore.esperarEscritura(repositorioPersonas.eliminar(rut.toString()));
+        } catch (TimeoutException e) {
+            return guardarTrasPlazo(rut.toString(), "ELIMINAR", "{}");
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.NOT_FOUND)) {
+                logger.info("Persona no encontrada para eliminar - RUT: {}", rut);
+                throw new IllegalArgumentException("Persona no encontrada");
+            }
+            repositorioPersonas.reportarError(e);
+            if (UtilidadesFirestore.esTransitorio(e)) {
+                return guardarTrasPlazo(rut.toString(), "ELIMINAR", "{}");
+            }
+            throw e;
+        }
+        agrupadorLecturas.invalidar(rut);
         logger.info("Persona eliminada exitosamente - RUT: {}", rut);
+        return ResultadoEscritura.aplicada(null);
     }
 
-    public PersonaResponseDTO obtenerPersonaPorRut(String rut) throws Exception {
+    public PersonaResponseDTO obtenerPersonaPorRut(Rut rut) throws Exception {
         logger.info("OBTENER PERSONA - Buscando RUT: {}", rut);
-        if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido: {}", rut);
-            throw new ExcepcionRutDuplicado("RUT inválido");
+        Persona diferida = servicioEscrituraDiferida.leer(rut);
+        if (diferida != null) {
+            logger.info("Persona encontrada en escritura diferida - RUT: {}", rut);
+            return new PersonaResponseDTO(diferida);
         }
-        firestore = inicializarFirestore();
-        if (firestore == null || !isFirestoreDisponible()) {
+        if (!repositorioPersonas.estaDisponible()) {
             logger.info("Firestore no disponible - No se puede obtener la persona con RUT: {}", rut);
-            throw new ExcepcionFirestoreNoDisponible("Firestore no disponible");
+            throw new ExcepcionFirestoreNoDisponible("Firestore no disponible, reintente más tarde");
+        }
+        Persona persona;
+        try {
+            persona = plazosFirestore.esperarLectura(agrupadorLecturas.compartir(rut,
+                    () -> plazosFirestore.cubrir("persona", () -> repositorioPersonas.obtener(rut.toString()))));
+        } catch (ExecutionException e) {
+            repositorioPersonas.reportarError(e);
+            throw e;
         }
-        var documentSnapshot = firestore.collection("personas").document(rut).get().get();
-        if (!documentSnapshot.exists()) {
+        if (persona == null) {
             logger.info("Persona no encontrada - RUT: {}", rut);
             return null;
         }
-        Persona persona = documentSnapshot.toObject(Persona.class);
         logger.info("Persona encontrada - RUT: {}", rut);
         return new PersonaResponseDTO(persona);
     }
 
     public List<PersonaResponseDTO> obtenerPersonas() throws Exception {
         logger.info("OBTENER TODAS LAS PERSONAS - Iniciando consulta");
-        firestore = inicializarFirestore();
-        if (firestore == null || !isFirestoreDisponible()) {
+        if (!repositorioPersonas.estaDisponible()) {
             logger.info("Firestore no disponible - No se puede obtener la lista de personas");
-            throw new ExcepcionFirestoreNoDisponible("Firestore no disponible");
+            throw new ExcepcionFirestoreNoDisponible("Firestore no disponible, reintente más tarde");
         }
         List<PersonaResponseDTO> personas = new ArrayList<>();
-        var querySnapshot = firestore.collection("personas").get().get();
-        for (var document : querySnapshot.getDocuments()) {
-            Persona persona = document.toObject(Persona.class);
+        List<Persona> documentos;
+        try {
+            documentos = plazosFirestore.esperarLectura(agrupadorLecturas.compartir("lista", "personas", repositorioPersonas::listar));
+        } catch (ExecutionException e) {
+            repositorioPersonas.reportarError(e);
+            throw e;
+        }
+        for (Persona persona : servicioEscrituraDiferida.superponer(documentos)) {
             personas.add(new PersonaResponseDTO(persona));
         }
         logger.info("Consulta completada - {} personas obtenidas", personas.size());
         return personas;
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,33 @@
 package cl.desafio_tecnico.crud_persona.service;
 
-import cl.desafio_tecnico.crud_persona.config.ConfiguracionFirebase;
+import cl.desafio_tecnico.crud_persona.exception.ExcepcionOperacionInaplicable;
 import cl.desafio_tecnico.crud_persona.exception.ExcepcionRutInmutable;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
 import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
 import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
 import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import cl.desafio_tecnico.crud_persona.util.UtilidadesFirestore;
 import cl.desafio_tecnico.crud_persona.validator.ValidadorRut;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.cloud.firestore.Firestore;
+import com.google.api.gax.rpc.StatusCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class SincronizadorPendientes {
@@ -27,123 +40,203 @@ public class SincronizadorPendientes {
     private ObjectMapper objectMapper;
 
     @Autowired
-    private ConfiguracionFirebase configuracionFirebase;
+    private RepositorioPersonas repositorioPersonas;
 
     @Autowired
-    private ServicioPersonas servicioPersonas;
+    private CoordinadorParticiones coordinadorParticiones;
+
+    @Autowired
+    private ServicioOperaciones servicioOperaciones;
+
+    @Autowired
+    private PlazosFirestore plazosFirestore;
+
+    @Autowired
+    private AgrupadorLecturas agrupadorLecturas;
+
+    @Value("${sincronizacion.reintentos.base-ms:30000}")
+    private long baseReintentoMs;
+
+    @Value("${sincronizacion.reintentos.maximo-ms:3600000}")
+    private long maximoReintentoMs;
+
+    @Value("${sincronizacion.reintentos.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${sincronizacion.tamano-pagina:500}")
+    private int tamanoPagina;
 
     private final ValidadorRut validadorRut = new ValidadorRut();
 
-    @Scheduled(fixedRate = 30000)
+    @Scheduled(fixedRateString = "${sincronizacion.intervalo-ms:30000}")
     public void sincronizarOperaciones() throws Exception {
         logger.info("Iniciando sincronización de operaciones pendientes");
 
-        Firestore db = servicioPersonas.inicializarFirestore();
-        if (db == null || !configuracionFirebase.estaInicializado()) {
-            logger.info("Firestore no disponible - Omitiendo sincronización, se reintentará en 30 segundos");
+        List<Integer> particiones = coordinadorParticiones.renovarArriendos();
+        if (particiones.isEmpty()) {
+            logger.info("Sin particiones asignadas a este nodo - Omitiendo sincronización");
             return;
         }
 
-        List<OperacionPendiente> operacionesPendientes = repositorioOperacionesPendientes.findAll();
-        if (operacionesPendientes.isEmpty()) {
-            logger.info("No hay operaciones pendientes para sincronizar");
+        if (!repositorioPersonas.estaDisponible()) {
+            logger.info("Firestore no disponible - Omitiendo sincronización, se reintentará en el próximo ciclo");
             return;
         }
 
-        logger.info("Procesando {} operaciones pendientes", operacionesPendientes.size());
+        Instant ahora = Instant.now();
+        // RUTs cuya operación falló en este ciclo: las siguientes no se adelantan para respetar el orden. Las que ya
+        // esperaban un reintento, o venían detrás de una diferida, no llegan a la consulta
+        Set<String> rutsEnEspera = new HashSet<>();
         int exitosas = 0;
         int fallidas = 0;
-        for (OperacionPendiente pendiente : operacionesPendientes) {
-            logger.info("Procesando operación {} para RUT: {}", pendiente.getTipoOperacion(), pendiente.getRut());
-            if (procesarOperacion(db, pendiente)) {
-                repositorioOperacionesPendientes.delete(pendiente);
-                exitosas++;
-                logger.info("Operación de sincronizacion completada - RUT: {}, Tipo: {}", pendiente.getRut(), pendiente.getTipoOperacion());
-            } else {
-                fallidas++;
-                logger.warn("Operación falló - RUT: {}, Tipo: {}", pendiente.getRut(), pendiente.getTipoOperacion());
+        int enEspera = 0;
+        long desde = 0;
+        boolean detener = false;
+        while (!detener) {
+            List<OperacionPendiente> pagina = repositorioOperacionesPendientes.listasParaAplicar(
+                    particiones, desde, ahora, PageRequest.of(0, tamanoPagina));
+            if (pagina.isEmpty()) {
+                if (desde == 0) {
+                    logger.info("No hay operaciones pendientes para sincronizar");
+                    return;
+                }
+                break;
+            }
+            logger.info("Procesando {} operaciones pendientes de las particiones {}", pagina.size(), particiones);
+            for (OperacionPendiente pendiente : pagina) {
+                desde = pendiente.getId();
+                if (!coordinadorParticiones.conservaArriendo(pendiente.getParticion())) {
+                    logger.info("Arriendo de la partición {} por expirar - Se retomará en el próximo ciclo", pendiente.getParticion());
+                    continue;
+                }
+                if (rutsEnEspera.contains(pendiente.getRut())) {
+                    enEspera++;
+                    continue;
+                }
+                logger.info("Procesando operación {} para RUT: {}", pendiente.getTipoOperacion(), pendiente.getRut());
+                try {
+                    procesarOperacion(pendiente);
+                    agrupadorLecturas.invalidar(Rut.parsear(pendiente.getRut()));
+                    servicioOperaciones.marcar(pendiente, EstadoOperacion.APPLIED, null);
+                    exitosas++;
+                    logger.info("Operación de sincronizacion completada - RUT: {}, Tipo: {}", pendiente.getRut(), pendiente.getTipoOperacion());
+                } catch (ExcepcionOperacionInaplicable | ExcepcionRutInmutable | JsonProcessingException e) {
+                    // Reintentar no cambia el resultado: pasa directo a la cola de fallidas
+                    logger.error("Operación {} inaplicable - RUT: {}. Pasa a la cola de fallidas: {}", pendiente.getId(), pendiente.getRut(), e.getMessage());
+                    servicioOperaciones.moverAFallidas(pendiente, e.getMessage());
+                    fallidas++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Sincronización interrumpida - Se retomará en el próximo ciclo");
+                    detener = true;
+                    break;
+                } catch (TimeoutException e) {
+                    // Firestore lento pero "disponible": igual que una caída, no es culpa de la operación ni consume intentos
+                    logger.warn("Firestore no respondió dentro del plazo durante la sincronización - Se retomará en el próximo ciclo");
+                    detener = true;
+                    break;
+                } catch (Exception e) {
+                    repositorioPersonas.reportarError(e);
+                    if (!repositorioPersonas.estaDisponible()) {
+                        // Caída de Firestore, no de la operación: no consume intentos
+                        logger.warn("Firestore dejó de responder durante la sincronización - Se retomará en el próximo ciclo");
+                        detener = true;
+                        break;
+                    }
+                    programarReintento(pendiente, e);
+                    rutsEnEspera.add(pendiente.getRut());
+                    fallidas++;
+                }
             }
+            if (pagina.size() < tamanoPagina) {
+                break;
+            }
+        }
+        logger.info("Sincronización completada - Exitosas: {}, Fallidas: {}, En espera de reintento: {}", exitosas, fallidas, enEspera);
+    }
+
+    // Backoff exponencial por operación (base·2^(n-1), con tope y ±20% de jitter); al agotar los intentos pasa a fallidas
+    private void programarReintento(OperacionPendiente pendiente, Exception e) {
+        int intentos = (pendiente.getIntentos() != null ? pendiente.getIntentos() : 0) + 1;
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > 1000) {
+            error = error.substring(0, 1000);
+        }
+        pendiente.setIntentos(intentos);
+        if (intentos >= maxIntentos) {
+            logger.error("Operación {} agotó {} intentos - RUT: {}. Pasa a la cola de fallidas: {}", pendiente.getId(), intentos, pendiente.getRut(), error);
+            servicioOperaciones.moverAFallidas(pendiente, error);
+            return;
         }
-        logger.info("Sincronización completada - Exitosas: {}, Fallidas: {}", exitosas, fallidas);
+        long esperaMs = Math.min(maximoReintentoMs, baseReintentoMs << Math.min(intentos - 1, 20));
+        esperaMs = esperaMs - esperaMs / 5 + ThreadLocalRandom.current().nextLong(esperaMs * 2 / 5 + 1);
+        pendiente.setProximoIntento(Instant.now().plusMillis(esperaMs));
+        pendiente.setDetalle(error);
+        repositorioOperacionesPendientes.save(pendiente);
+        logger.warn("Operación {} falló (intento {} de {}) - RUT: {}. Próximo intento en {} ms: {}",
+                pendiente.getId(), intentos, maxIntentos, pendiente.getRut(), esperaMs, error);
     }
 
-    private boolean procesarOperacion(Firestore db, OperacionPendiente pendiente) throws Exception {
+    // Termina normalmente si la operación quedó aplicada; ExcepcionOperacionInaplicable si nunca podrá aplicarse
+    private void procesarOperacion(OperacionPendiente pendiente) throws Exception {
         if (!pendiente.getTipoOperacion().equals("ELIMINAR")) {
             if (pendiente.getDatos() == null || pendiente.getDatos().trim().isEmpty() || pendiente.getDatos().equals("{}")) {
-                logger.error("Datos vacíos o inválidos para operación {} - RUT: {}. Eliminando operación pendiente.", pendiente.getTipoOperacion(), pendiente.getRut());
-                repositorioOperacionesPendientes.delete(pendiente);
-                return false;
+                throw new ExcepcionOperacionInaplicable("Datos vacíos o inválidos");
             }
         }
 
-        return switch (pendiente.getTipoOperacion()) {
-            case "CREAR" -> procesarCrear(db, pendiente);
-            case "ACTUALIZAR" -> procesarActualizar(db, pendiente);
-            case "ELIMINAR" -> procesarEliminar(db, pendiente);
-            default -> {
-                logger.warn("Tipo de operación desconocido: {}. Eliminando operación pendiente.", pendiente.getTipoOperacion());
-                repositorioOperacionesPendientes.delete(pendiente);
-                yield false;
-            }
-        };
+        switch (pendiente.getTipoOperacion()) {
+            case "CREAR" -> procesarCrear(pendiente);
+            case "ACTUALIZAR" -> procesarActualizar(pendiente);
+            case "ELIMINAR" -> procesarEliminar(pendiente);
+            default -> throw new ExcepcionOperacionInaplicable("Tipo de operación desconocido: " + pendiente.getTipoOperacion());
+        }
     }
 
-    private boolean procesarCrear(Firestore db, OperacionPendiente pendiente) throws Exception {
-        logger.debug("Datos a deserializar para CREAR: {}", pendiente.getDatos());
+    private void procesarCrear(OperacionPendiente pendiente) throws Exception {
         Persona persona = objectMapper.readValue(pendiente.getDatos(), Persona.class);
         if (persona.getRut() == null || persona.getRut().trim().isEmpty()) {
-            logger.error("Persona sin RUT válido en operación CREAR - RUT: {}. Eliminando operación pendiente.", pendiente.getRut());
-            repositorioOperacionesPendientes.delete(pendiente);
-            return false;
+            throw new ExcepcionOperacionInaplicable("Persona sin RUT válido");
         }
-        boolean existe = db.collection("personas").document(persona.getRut()).get().get().exists();
-        if (existe) {
-            logger.info("RUT ya existe, sin sincronización - RUT: {}", persona.getRut());
-            return true;
+        try {
+            plazosFirestore.esperarEscritura(repositorioPersonas.crear(persona));
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.ALREADY_EXISTS)) {
+                logger.info("RUT ya existe, sin sincronización - RUT: {}", persona.getRut());
+                return;
+            }
+            throw e;
         }
-        db.collection("personas").document(persona.getRut()).set(persona).get();
         logger.info("Persona creada exitosamente en sincronización - RUT: {}", persona.getRut());
-        return true;
     }
 
-    private boolean procesarActualizar(Firestore db, OperacionPendiente pendiente) throws Exception {
-        logger.debug("Datos a deserializar para ACTUALIZAR: {}", pendiente.getDatos());
+    private void procesarActualizar(OperacionPendiente pendiente) throws Exception {
         Persona persona = objectMapper.readValue(pendiente.getDatos(), Persona.class);
         if (persona.getRut() == null || persona.getRut().trim().isEmpty()) {
-            logger.error("Persona sin RUT válido en operación ACTUALIZAR - RUT: {}. Eliminando operación pendiente.", pendiente.getRut());
-            repositorioOperacionesPendientes.delete(pendiente);
-            return false;
+            throw new ExcepcionOperacionInaplicable("Persona sin RUT válido");
         }
         if (!pendiente.getRut().equals(persona.getRut())) {
             logger.info("Intento de actualizar RUT de {} a {} en sincronización. Acción bloqueada.", pendiente.getRut(), persona.getRut());
             throw new ExcepcionRutInmutable("No se permite actualizar el RUT de una persona en sincronización");
         }
-        boolean existe = db.collection("personas").document(pendiente.getRut()).get().get().exists();
-        if (!existe) {
-            logger.info("Persona no encontrada para actualizar en sincronización - RUT: {}. Eliminando operación pendiente.", pendiente.getRut());
-            repositorioOperacionesPendientes.delete(pendiente);
-            return false;
+        try {
+            plazosFirestore.esperarEscritura(repositorioPersonas.actualizar(persona));
+        } catch (ExecutionException e) {
+            if (UtilidadesFirestore.esCodigo(e, StatusCode.Code.NOT_FOUND)) {
+                throw new ExcepcionOperacionInaplicable("Persona no encontrada");
+            }
+            throw e;
         }
-        db.collection("personas").document(pendiente.getRut()).set(persona).get();
         logger.info("Persona actualizada exitosamente en sincronización - RUT: {}", pendiente.getRut());
-        return true;
     }
 
-    private boolean procesarEliminar(Firestore db, OperacionPendiente pendiente) throws Exception {
+    private void procesarEliminar(OperacionPendiente pendiente) throws Exception {
         String rut = pendiente.getRut();
         if (!validadorRut.isValid(rut, null)) {
-            logger.info("RUT inválido en sincronización: {}. Eliminando operación pendiente.", rut);
-            repositorioOperacionesPendientes.delete(pendiente);
-            return false;
-        }
-        boolean existe = db.collection("personas").document(rut).get().get().exists();
-        if (!existe) {
-            logger.info("Persona no existe para eliminar en sincronización - RUT: {}. Eliminando operación pendiente.", rut);
-            repositorioOperacionesPendientes.delete(pendiente);
-            return true;
+            throw new ExcepcionOperacionInaplicable("RUT inválido");
         }
-        db.collection("personas").document(rut).delete().get();
+        // Sin precondición de existencia: si el documento ya no existe el resultado es el mismo
+        plazosFirestore.esperarEscritura(repositorioPersonas.eliminarSiExiste(rut));
         logger.info("Persona eliminada exitosamente en sincronización - RUT: {}", rut);
-        return true;
     }
 }
\ No newline at end of file
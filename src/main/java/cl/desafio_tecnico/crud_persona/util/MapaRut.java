@@ -0,0 +1,146 @@
+package cl.desafio_tecnico.crud_persona.util;
+
+import cl.desafio_tecnico.crud_persona.model.Rut;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+// Mapa con clave RUT sobre arreglos primitivos (direccionamiento abierto, sondeo lineal): sin String ni nodos por entrada.
+// El cuerpo de un RUT nunca es 0, así que 0 marca las celdas vacías. No es thread-safe: sincronizar externamente.
+public class MapaRut<V> {
+    private static final int VACIA = 0;
+    private static final float CARGA_MAXIMA = 0.5f;
+
+    private int[] claves;
+    private Object[] valores;
+    private int tamano;
+
+    public MapaRut() {
+        this(16);
+    }
+
+    public MapaRut(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadEsperada / CARGA_MAXIMA)) - 1) << 1;
+        claves = new int[capacidad];
+        valores = new Object[capacidad];
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    public boolean containsKey(Rut rut) {
+        return buscar(rut.cuerpo()) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Rut rut) {
+        int indice = buscar(rut.cuerpo());
+        return indice >= 0 ? (V) valores[indice] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(Rut rut, V valor) {
+        int clave = rut.cuerpo();
+        int mascara = claves.length - 1;
+        int indice = posicion(clave, mascara);
+        while (claves[indice] != VACIA) {
+            if (claves[indice] == clave) {
+                V anterior = (V) valores[indice];
+                valores[indice] = valor;
+                return anterior;
+            }
+            indice = (indice + 1) & mascara;
+        }
+        claves[indice] = clave;
+        valores[indice] = valor;
+        if (++tamano > claves.length * CARGA_MAXIMA) {
+            redimensionar(claves.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Rut rut) {
+        int indice = buscar(rut.cuerpo());
+        if (indice < 0) {
+            return null;
+        }
+        V anterior = (V) valores[indice];
+        eliminarEn(indice);
+        return anterior;
+    }
+
+    public void clear() {
+        Arrays.fill(claves, VACIA);
+        Arrays.fill(valores, null);
+        tamano = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Rut, V> accion) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != VACIA) {
+                accion.accept(new Rut(claves[i]), (V) valores[i]);
+            }
+        }
+    }
+
+    private int buscar(int clave) {
+        int mascara = claves.length - 1;
+        int indice = posicion(clave, mascara);
+        while (claves[indice] != VACIA) {
+            if (claves[indice] == clave) {
+                return indice;
+            }
+            indice = (indice + 1) & mascara;
+        }
+        return -1;
+    }
+
+    // Borrado con desplazamiento hacia atrás: mantiene las cadenas de sondeo sin marcas de borrado
+    private void eliminarEn(int indice) {
+        int mascara = claves.length - 1;
+        int hueco = indice;
+        int siguiente = (hueco + 1) & mascara;
+        while (claves[siguiente] != VACIA) {
+            int ideal = posicion(claves[siguiente], mascara);
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                claves[hueco] = claves[siguiente];
+                valores[hueco] = valores[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        claves[hueco] = VACIA;
+        valores[hueco] = null;
+        tamano--;
+    }
+
+    private void redimensionar(int capacidad) {
+        int[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        claves = new int[capacidad];
+        valores = new Object[capacidad];
+        int mascara = capacidad - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIA) {
+                int indice = posicion(clavesAnteriores[i], mascara);
+                while (claves[indice] != VACIA) {
+                    indice = (indice + 1) & mascara;
+                }
+                claves[indice] = clavesAnteriores[i];
+                valores[indice] = valoresAnteriores[i];
+            }
+        }
+    }
+
+    static int posicion(int clave, int mascara) {
+        int h = clave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
@@ -0,0 +1,28 @@
+package cl.desafio_tecnico.crud_persona.util;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+
+public class UtilidadesFirestore {
+
+    public static StatusCode.Code codigoError(Throwable error) {
+        Throwable actual = error;
+        while (actual != null) {
+            if (actual instanceof ApiException apiException) {
+                return apiException.getStatusCode().getCode();
+            }
+            actual = actual.getCause();
+        }
+        return null;
+    }
+
+    public static boolean esCodigo(Throwable error, StatusCode.Code codigo) {
+        return codigoError(error) == codigo;
+    }
+
+    // Errores tras los que la escritura puede o no haberse aplicado, o Firestore no responde
+    public static boolean esTransitorio(Throwable error) {
+        StatusCode.Code codigo = codigoError(error);
+        return codigo == StatusCode.Code.UNAVAILABLE || codigo == StatusCode.Code.DEADLINE_EXCEEDED;
+    }
+}
@@ -1,7 +1,11 @@
 package cl.desafio_tecnico.crud_persona.util;
 
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import com.google.cloud.firestore.encoding.CustomClassMapper;
+
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.Map;
 
 public class UtilidadesPersona {
 
@@ -10,4 +14,11 @@ public class UtilidadesPersona {
         LocalDate fechaNac = LocalDate.parse(fechaNacimiento);
         return Period.between(fechaNac, LocalDate.now()).getYears();
     }
-}
\ No newline at end of file
+
+    // Representación completa del documento para update(): la misma conversión que usa create(), así que reemplaza
+    // todos los campos como lo haría set() e incluye cualquier campo que se agregue a Persona
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> aMapa(Persona persona) {
+        return (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(persona);
+    }
+}
@@ -0,0 +1,84 @@
+package cl.desafio_tecnico.crud_persona.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RutTest {
+
+    @Test
+    void parseaFormasConYSinPuntosOGuion() {
+        assertEquals(new Rut(19911121), Rut.parsear("19.911.121-3"));
+        assertEquals(new Rut(19911121), Rut.parsear("19911121-3"));
+        assertEquals(new Rut(19911121), Rut.parsear("199111213"));
+    }
+
+    @Test
+    void aceptaDigitoVerificadorKEnMayusculaOMinuscula() {
+        assertEquals(new Rut(1000005), Rut.parsear("1.000.005-K"));
+        assertEquals(new Rut(1000005), Rut.parsear("1000005-k"));
+        assertEquals("1000005-K", Rut.parsear("1000005-k").toString());
+    }
+
+    @Test
+    void aceptaDigitoVerificadorCero() {
+        assertEquals(new Rut(1000013), Rut.parsear("1000013-0"));
+    }
+
+    @Test
+    void ignoraCerosALaIzquierda() {
+        assertEquals(new Rut(19911121), Rut.parsear("019.911.121-3"));
+        assertEquals(new Rut(19911121), Rut.parsear("00000019911121-3"));
+        assertEquals(new Rut(12345678), Rut.parsear("012345678-5"));
+    }
+
+    @Test
+    void rechazaMasDeOchoDigitos() {
+        assertNull(Rut.parsear("123456789-2"));
+        assertNull(Rut.parsear("100000000-0"));
+        assertNull(Rut.parsear("123.456.789-2"));
+    }
+
+    @Test
+    void rechazaSeparadoresFueraDeSuPosicion() {
+        assertNull(Rut.parsear("1-2.3"));
+        assertNull(Rut.parsear("19.911121-3"));
+        assertNull(Rut.parsear("199.11.121-3"));
+        assertNull(Rut.parsear(".19.911.121-3"));
+        assertNull(Rut.parsear("19.911.121.3"));
+        assertNull(Rut.parsear("1991-1121-3"));
+        assertNull(Rut.parsear("19911121--3"));
+    }
+
+    @Test
+    void rechazaDigitoVerificadorIncorrecto() {
+        assertNull(Rut.parsear("19.911.121-4"));
+        assertNull(Rut.parsear("1000005-0"));
+        assertNull(Rut.parsear("19911121-X"));
+    }
+
+    @Test
+    void rechazaEntradasSinCuerpoOConLetras() {
+        assertNull(Rut.parsear(null));
+        assertNull(Rut.parsear(""));
+        assertNull(Rut.parsear("-"));
+        assertNull(Rut.parsear("0-0"));
+        assertNull(Rut.parsear("3"));
+        assertNull(Rut.parsear("19A11121-3"));
+    }
+
+    @Test
+    void formaCanonicaSinPuntosConGuion() {
+        assertEquals("19911121-3", new Rut(19911121).toString());
+        assertEquals("99999999-9", new Rut(99999999).toString());
+        assertEquals("1-9", new Rut(1).toString());
+    }
+
+    @Test
+    void cuerpoFueraDeRangoLanzaExcepcion() {
+        assertThrows(IllegalArgumentException.class, () -> new Rut(0));
+        assertThrows(IllegalArgumentException.class, () -> new Rut(100_000_000));
+    }
+}
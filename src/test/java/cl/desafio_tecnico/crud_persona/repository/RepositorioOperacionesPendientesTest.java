@@ -0,0 +1,84 @@
+package cl.desafio_tecnico.crud_persona.repository;
+
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:operaciones-pendientes;DB_CLOSE_DELAY=-1",
+        "firestore.modo=simulado",
+        "tareas-programadas.habilitadas=false"
+})
+class RepositorioOperacionesPendientesTest {
+    private static final List<Integer> PARTICIONES = List.of(0);
+
+    @Autowired
+    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+
+    private Instant ahora;
+
+    @BeforeEach
+    void limpiar() {
+        repositorioOperacionesPendientes.deleteAll();
+        ahora = Instant.now();
+    }
+
+    private Long guardar(String rut, EstadoOperacion estado, Instant proximoIntento) {
+        OperacionPendiente operacion = new OperacionPendiente();
+        operacion.setRut(rut);
+        operacion.setTipoOperacion("ELIMINAR");
+        operacion.setDatos("{}");
+        operacion.setParticion(0);
+        operacion.setEstado(estado);
+        operacion.setActualizadoEn(ahora);
+        operacion.setProximoIntento(proximoIntento);
+        return repositorioOperacionesPendientes.save(operacion).getId();
+    }
+
+    private List<Long> listas(long desde, int tamano) {
+        return repositorioOperacionesPendientes.listasParaAplicar(PARTICIONES, desde, ahora, PageRequest.of(0, tamano))
+                .stream()
+                .map(OperacionPendiente::getId)
+                .toList();
+    }
+
+    @Test
+    void excluyeLasQueEsperanReintentoYLasQueVanDetrasDeEllas() {
+        guardar("1-9", EstadoOperacion.PENDING, ahora.plusSeconds(60));
+        guardar("1-9", EstadoOperacion.PENDING, null);
+        Long vencida = guardar("2-7", EstadoOperacion.PENDING, ahora.minusSeconds(1));
+        Long libre = guardar("3-5", EstadoOperacion.PENDING, null);
+
+        assertEquals(List.of(vencida, libre), listas(0, 10));
+    }
+
+    @Test
+    void excluyeLasQueVanDetrasDeUnaDiferida() {
+        guardar("1-9", EstadoOperacion.DEFERRED, null);
+        guardar("1-9", EstadoOperacion.PENDING, null);
+        guardar("1-9", EstadoOperacion.APPLIED, null);
+        Long otroRut = guardar("2-7", EstadoOperacion.PENDING, null);
+
+        assertEquals(List.of(otroRut), listas(0, 10));
+    }
+
+    @Test
+    void paginaPorIdDesdeElUltimoLeido() {
+        Long primera = guardar("1-9", EstadoOperacion.PENDING, null);
+        Long segunda = guardar("2-7", EstadoOperacion.PENDING, null);
+        Long tercera = guardar("3-5", EstadoOperacion.PENDING, null);
+
+        assertEquals(List.of(primera, segunda), listas(0, 2));
+        assertEquals(List.of(tercera), listas(segunda, 2));
+        assertEquals(List.of(), listas(tercera, 2));
+    }
+}
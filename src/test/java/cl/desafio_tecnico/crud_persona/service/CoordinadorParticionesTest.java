@@ -0,0 +1,164 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.CrudPersonaApplication;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dos instancias sobre la misma base H2 (AUTO_SERVER), cada una con su Firestore simulado: lo que escribe cada nodo
+// queda en su propio sustituto, así que una operación aplicada dos veces aparecería en ambos
+class CoordinadorParticionesTest {
+    private static final long ARRIENDO_MS = 3000;
+
+    @TempDir
+    Path directorio;
+
+    private ConfigurableApplicationContext nodoA;
+    private ConfigurableApplicationContext nodoB;
+    private int siguienteCuerpo = 10000000;
+
+    @BeforeEach
+    void iniciar() {
+        String url = "jdbc:h2:file:" + directorio.resolve("pendientes").toAbsolutePath() + ";AUTO_SERVER=TRUE";
+        nodoA = nodo("nodo-a", url);
+        nodoB = nodo("nodo-b", url);
+    }
+
+    @AfterEach
+    void cerrar() {
+        nodoB.close();
+        nodoA.close();
+    }
+
+    private static ConfigurableApplicationContext nodo(String nombre, String url) {
+        return new SpringApplicationBuilder(CrudPersonaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--firestore.modo=simulado",
+                        "--firestore.simulado.latencia-ms=0",
+                        "--firestore.simulado.variacion-ms=0",
+                        "--tareas-programadas.habilitadas=false",
+                        "--sincronizacion.nodo=" + nombre,
+                        "--sincronizacion.particiones=4",
+                        "--sincronizacion.arriendo-ms=" + ARRIENDO_MS,
+                        "--sincronizacion.margen-arriendo-ms=500");
+    }
+
+    private List<Long> encolar(int cantidad) throws Exception {
+        ObjectMapper objectMapper = nodoA.getBean(ObjectMapper.class);
+        CoordinadorParticiones coordinador = nodoA.getBean(CoordinadorParticiones.class);
+        ServicioOperaciones servicioOperaciones = nodoA.getBean(ServicioOperaciones.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            String rut = new Rut(siguienteCuerpo++).toString();
+            OperacionPendiente pendiente = new OperacionPendiente();
+            pendiente.setRut(rut);
+            pendiente.setTipoOperacion("CREAR");
+            pendiente.setDatos(objectMapper.writeValueAsString(new Persona(rut, "Nombre", "Apellido", null, null)));
+            pendiente.setParticion(coordinador.particionDe(rut));
+            ids.add(servicioOperaciones.registrar(pendiente, EstadoOperacion.PENDING).getId());
+        }
+        return ids;
+    }
+
+    private static Set<String> personas(ConfigurableApplicationContext nodo) throws Exception {
+        return nodo.getBean(RepositorioPersonas.class).listar().get().stream()
+                .map(Persona::getRut)
+                .collect(Collectors.toSet());
+    }
+
+    private List<OperacionPendiente> operaciones(List<Long> ids) {
+        return nodoA.getBean(RepositorioOperacionesPendientes.class).findAllById(ids);
+    }
+
+    @Test
+    void cadaOperacionSeAplicaUnaSolaVezEntreDosNodos() throws Exception {
+        List<Long> ids = encolar(40);
+        CoordinadorParticiones coordinadorA = nodoA.getBean(CoordinadorParticiones.class);
+        CoordinadorParticiones coordinadorB = nodoB.getBean(CoordinadorParticiones.class);
+        // A toma todo mientras es el único nodo visto; al aparecer B libera su exceso y B lo reclama
+        coordinadorA.renovarArriendos();
+        coordinadorB.renovarArriendos();
+        List<Integer> particionesA = coordinadorA.renovarArriendos();
+        List<Integer> particionesB = coordinadorB.renovarArriendos();
+        assertEquals(2, particionesA.size());
+        assertEquals(2, particionesB.size());
+        Set<Integer> todas = new HashSet<>(particionesA);
+        todas.addAll(particionesB);
+        assertEquals(Set.of(0, 1, 2, 3), todas);
+
+        SincronizadorPendientes sincronizadorA = nodoA.getBean(SincronizadorPendientes.class);
+        SincronizadorPendientes sincronizadorB = nodoB.getBean(SincronizadorPendientes.class);
+        CompletableFuture<Void> cicloA = CompletableFuture.runAsync(() -> sincronizar(sincronizadorA));
+        CompletableFuture<Void> cicloB = CompletableFuture.runAsync(() -> sincronizar(sincronizadorB));
+        CompletableFuture.allOf(cicloA, cicloB).get();
+
+        assertTrue(operaciones(ids).stream().allMatch(operacion -> operacion.getEstado() == EstadoOperacion.APPLIED));
+        Set<String> aplicadasA = personas(nodoA);
+        Set<String> aplicadasB = personas(nodoB);
+        assertFalse(aplicadasA.isEmpty());
+        assertFalse(aplicadasB.isEmpty());
+        assertEquals(40, aplicadasA.size() + aplicadasB.size());
+        Set<String> comunes = new HashSet<>(aplicadasA);
+        comunes.retainAll(aplicadasB);
+        assertEquals(Set.of(), comunes);
+    }
+
+    @Test
+    void otroNodoTomaLasParticionesAlExpirarElArriendo() throws Exception {
+        CoordinadorParticiones coordinadorA = nodoA.getBean(CoordinadorParticiones.class);
+        CoordinadorParticiones coordinadorB = nodoB.getBean(CoordinadorParticiones.class);
+        coordinadorA.renovarArriendos();
+        coordinadorB.renovarArriendos();
+        List<Integer> particionesA = coordinadorA.renovarArriendos();
+        coordinadorB.renovarArriendos();
+
+        // A deja de renovar sin liberar sus particiones, como si el proceso hubiera caído
+        List<Long> ids = encolar(40);
+        SincronizadorPendientes sincronizadorB = nodoB.getBean(SincronizadorPendientes.class);
+        sincronizadorB.sincronizarOperaciones();
+        List<OperacionPendiente> deA = operaciones(ids).stream()
+                .filter(operacion -> particionesA.contains(operacion.getParticion()))
+                .toList();
+        assertFalse(deA.isEmpty());
+        assertTrue(deA.stream().allMatch(operacion -> operacion.getEstado() == EstadoOperacion.PENDING));
+
+        Thread.sleep(ARRIENDO_MS + 500);
+        sincronizadorB.sincronizarOperaciones();
+
+        assertTrue(operaciones(ids).stream().allMatch(operacion -> operacion.getEstado() == EstadoOperacion.APPLIED));
+        assertEquals(40, personas(nodoB).size());
+        assertEquals(Set.of(), personas(nodoA));
+    }
+
+    private static void sincronizar(SincronizadorPendientes sincronizador) {
+        try {
+            sincronizador.sincronizarOperaciones();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package cl.desafio_tecnico.crud_persona.service;
+
+import cl.desafio_tecnico.crud_persona.dto.ResultadoEscritura;
+import cl.desafio_tecnico.crud_persona.model.EstadoOperacion;
+import cl.desafio_tecnico.crud_persona.model.OperacionPendiente;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioOperacionesPendientes;
+import cl.desafio_tecnico.crud_persona.repository.RepositorioPersonasSimulado;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:escritura-diferida;DB_CLOSE_DELAY=-1",
+        "firestore.modo=simulado",
+        "firestore.simulado.latencia-ms=0",
+        "firestore.simulado.variacion-ms=0",
+        "tareas-programadas.habilitadas=false",
+        "escritura-diferida.habilitada=true",
+        "escritura-diferida.ventana-ms=" + ServicioEscrituraDiferidaTest.VENTANA_MS
+})
+class ServicioEscrituraDiferidaTest {
+    static final long VENTANA_MS = 200;
+
+    private static final AtomicInteger SIGUIENTE_CUERPO = new AtomicInteger(20000000);
+
+    @Autowired
+    private ServicioEscrituraDiferida servicioEscrituraDiferida;
+
+    @Autowired
+    private ServicioPersonas servicioPersonas;
+
+    @Autowired
+    private RepositorioPersonasSimulado repositorioPersonas;
+
+    @Autowired
+    private RepositorioOperacionesPendientes repositorioOperacionesPendientes;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Rut rut;
+
+    @BeforeEach
+    void crearPersona() throws Exception {
+        rut = new Rut(SIGUIENTE_CUERPO.getAndIncrement());
+        repositorioPersonas.setLatencia(0, 0);
+        repositorioPersonas.crear(persona("Inicial")).get();
+    }
+
+    @AfterEach
+    void restaurarLatencia() {
+        repositorioPersonas.setLatencia(0, 0);
+    }
+
+    private Persona persona(String nombre) {
+        return new Persona(rut.toString(), nombre, "Apellido", null, null);
+    }
+
+    private Long encolar(String nombre) throws Exception {
+        return servicioEscrituraDiferida.encolar(rut, persona(nombre)).getOperacion().getId();
+    }
+
+    private OperacionPendiente operacion(Long id) {
+        return repositorioOperacionesPendientes.findById(id).orElseThrow();
+    }
+
+    private String nombreEnFirestore() throws Exception {
+        Persona persona = repositorioPersonas.obtener(rut.toString()).get();
+        return persona != null ? persona.getNombre() : null;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "La condición no se cumplió a tiempo");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void actualizacionesDentroDeLaVentanaSeFundenEnUnaOperacion() throws Exception {
+        Long primera = encolar("Uno");
+        Long segunda = encolar("Dos");
+        Long tercera = encolar("Tres");
+
+        assertEquals(primera, segunda);
+        assertEquals(primera, tercera);
+        assertEquals("Tres", objectMapper.readValue(operacion(primera).getDatos(), Persona.class).getNombre());
+        assertEquals("Tres", servicioEscrituraDiferida.leer(rut).getNombre());
+
+        esperarHasta(() -> operacion(primera).getEstado() == EstadoOperacion.APPLIED);
+        assertEquals("Tres", nombreEnFirestore());
+    }
+
+    @Test
+    void filaQueDejoDeSerDiferidaAbreUnaVentanaNueva() throws Exception {
+        Long primera = encolar("Uno");
+        // La recuperación de huérfanas (u otro nodo) la pasa al outbox mientras la ventana sigue abierta
+        repositorioOperacionesPendientes.reactivarDiferidasAnterioresA(Instant.now().plusSeconds(1));
+
+        Long segunda = encolar("Dos");
+
+        assertNotEquals(primera, segunda);
+        OperacionPendiente anterior = operacion(primera);
+        assertEquals(EstadoOperacion.PENDING, anterior.getEstado());
+        assertEquals("Uno", objectMapper.readValue(anterior.getDatos(), Persona.class).getNombre());
+        // La nueva ventana no se adelanta a la fila del outbox: pasa detrás de ella
+        esperarHasta(() -> operacion(segunda).getEstado() == EstadoOperacion.PENDING);
+        assertEquals("Inicial", nombreEnFirestore());
+    }
+
+    @Test
+    void ventanaNuevaEsperaALaEscrituraEnCurso() throws Exception {
+        repositorioPersonas.setLatencia(4 * VENTANA_MS, 0);
+        Long primera = encolar("Uno");
+        Thread.sleep(VENTANA_MS + 100);
+        Long segunda = encolar("Dos");
+        assertNotEquals(primera, segunda);
+
+        // Vencida su ventana, la segunda sigue diferida mientras la primera está en vuelo
+        Thread.sleep(VENTANA_MS + 100);
+        assertEquals(EstadoOperacion.DEFERRED, operacion(primera).getEstado());
+        assertEquals(EstadoOperacion.DEFERRED, operacion(segunda).getEstado());
+        assertEquals("Dos", servicioEscrituraDiferida.leer(rut).getNombre());
+
+        esperarHasta(() -> operacion(segunda).getEstado() == EstadoOperacion.APPLIED);
+        assertEquals(EstadoOperacion.APPLIED, operacion(primera).getEstado());
+        assertFalse(operacion(primera).getActualizadoEn().isAfter(operacion(segunda).getActualizadoEn()));
+        assertEquals("Dos", nombreEnFirestore());
+    }
+
+    @Test
+    void eliminarVaciaLaVentanaYEsperaLaEscrituraEnCurso() throws Exception {
+        repositorioPersonas.setLatencia(2 * VENTANA_MS, 0);
+        Long primera = encolar("Uno");
+        Thread.sleep(VENTANA_MS + 50);
+        Long segunda = encolar("Dos");
+
+        ResultadoEscritura resultado = servicioPersonas.eliminarPersona(rut);
+
+        // Nada del RUT quedó sin aplicar, así que la eliminación va directo a Firestore y no al outbox
+        assertFalse(resultado.isPendiente());
+        assertEquals(EstadoOperacion.APPLIED, operacion(primera).getEstado());
+        assertEquals(EstadoOperacion.APPLIED, operacion(segunda).getEstado());
+        assertNull(servicioEscrituraDiferida.leer(rut));
+        assertNull(nombreEnFirestore());
+    }
+}
@@ -0,0 +1,125 @@
+package cl.desafio_tecnico.crud_persona.util;
+
+import cl.desafio_tecnico.crud_persona.model.Rut;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapaRutTest {
+
+    // Cuerpos que caen en la misma celda inicial de una tabla de 'capacidad' celdas
+    private static List<Rut> colisionantes(int capacidad, int cantidad) {
+        List<Rut> ruts = new ArrayList<>();
+        int celda = MapaRut.posicion(1_000_000, capacidad - 1);
+        for (int cuerpo = 1_000_000; ruts.size() < cantidad; cuerpo++) {
+            if (MapaRut.posicion(cuerpo, capacidad - 1) == celda) {
+                ruts.add(new Rut(cuerpo));
+            }
+        }
+        return ruts;
+    }
+
+    @Test
+    void putGetYReemplazo() {
+        MapaRut<String> mapa = new MapaRut<>();
+        Rut rut = new Rut(19911121);
+        assertNull(mapa.put(rut, "a"));
+        assertEquals("a", mapa.get(rut));
+        assertEquals("a", mapa.put(rut, "b"));
+        assertEquals("b", mapa.get(rut));
+        assertEquals(1, mapa.size());
+        assertNull(mapa.get(new Rut(12345678)));
+    }
+
+    @Test
+    void removeDevuelveElValorYVaciaLaEntrada() {
+        MapaRut<String> mapa = new MapaRut<>();
+        Rut rut = new Rut(19911121);
+        mapa.put(rut, "a");
+        assertEquals("a", mapa.remove(rut));
+        assertNull(mapa.remove(rut));
+        assertFalse(mapa.containsKey(rut));
+        assertTrue(mapa.isEmpty());
+    }
+
+    @Test
+    void borrarEnMedioDeUnaCadenaDeColisionesConservaLasDemas() {
+        // Capacidad 8 para 3 entradas: sin redimensionar, las tres comparten la cadena de sondeo
+        MapaRut<Integer> mapa = new MapaRut<>(3);
+        List<Rut> ruts = colisionantes(8, 3);
+        for (int i = 0; i < ruts.size(); i++) {
+            mapa.put(ruts.get(i), i);
+        }
+        assertEquals(0, mapa.remove(ruts.get(0)));
+        assertEquals(1, mapa.get(ruts.get(1)));
+        assertEquals(2, mapa.get(ruts.get(2)));
+
+        mapa.put(ruts.get(0), 10);
+        assertEquals(1, mapa.remove(ruts.get(1)));
+        assertEquals(10, mapa.get(ruts.get(0)));
+        assertEquals(2, mapa.get(ruts.get(2)));
+        assertEquals(2, mapa.size());
+    }
+
+    @Test
+    void redimensionarConservaEntradasQueColisionaban() {
+        MapaRut<Integer> mapa = new MapaRut<>(3);
+        List<Rut> ruts = colisionantes(8, 40);
+        for (int i = 0; i < ruts.size(); i++) {
+            mapa.put(ruts.get(i), i);
+        }
+        assertEquals(40, mapa.size());
+        for (int i = 0; i < ruts.size(); i++) {
+            assertEquals(i, mapa.get(ruts.get(i)));
+        }
+        for (int i = 0; i < ruts.size(); i += 2) {
+            assertEquals(i, mapa.remove(ruts.get(i)));
+        }
+        for (int i = 0; i < ruts.size(); i++) {
+            assertEquals(i % 2 == 0 ? null : i, mapa.get(ruts.get(i)));
+        }
+    }
+
+    @Test
+    void operacionesAleatoriasCoincidenConHashMap() {
+        MapaRut<Integer> mapa = new MapaRut<>(4);
+        Map<Integer, Integer> esperado = new HashMap<>();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Pocos cuerpos distintos para que se repitan claves, colisiones y borrados
+            Rut rut = new Rut(1 + aleatorio.nextInt(2_000));
+            if (aleatorio.nextInt(3) == 0) {
+                assertEquals(esperado.remove(rut.cuerpo()), mapa.remove(rut));
+            } else {
+                assertEquals(esperado.put(rut.cuerpo(), i), mapa.put(rut, i));
+            }
+            assertEquals(esperado.size(), mapa.size());
+        }
+        for (int cuerpo = 1; cuerpo <= 2_000; cuerpo++) {
+            assertEquals(esperado.get(cuerpo), mapa.get(new Rut(cuerpo)));
+        }
+        Map<Integer, Integer> recorrido = new HashMap<>();
+        mapa.forEach((rut, valor) -> recorrido.put(rut.cuerpo(), valor));
+        assertEquals(esperado, recorrido);
+    }
+
+    @Test
+    void clearVaciaElMapa() {
+        MapaRut<Integer> mapa = new MapaRut<>();
+        for (int cuerpo = 1; cuerpo <= 100; cuerpo++) {
+            mapa.put(new Rut(cuerpo), cuerpo);
+        }
+        mapa.clear();
+        assertTrue(mapa.isEmpty());
+        assertNull(mapa.get(new Rut(50)));
+    }
+}
@@ -0,0 +1,52 @@
+package cl.desafio_tecnico.crud_persona.util;
+
+import cl.desafio_tecnico.crud_persona.model.Direccion;
+import cl.desafio_tecnico.crud_persona.model.Persona;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilidadesPersonaTest {
+
+    private static Set<String> campos(Class<?> clase) {
+        return Arrays.stream(clase.getDeclaredFields())
+                .filter(campo -> !Modifier.isStatic(campo.getModifiers()))
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void aMapaIncluyeTodosLosCamposDePersona() {
+        Persona persona = new Persona("19911121-3", "Julia", "Sim", Timestamp.ofTimeSecondsAndNanos(631152000, 0),
+                new Direccion("Viva 123", "Santiago", "Metropolitana"));
+
+        Map<String, Object> mapa = UtilidadesPersona.aMapa(persona);
+
+        assertEquals(campos(Persona.class), mapa.keySet());
+        assertEquals("Julia", mapa.get("nombre"));
+        assertEquals(persona.getFechaNacimiento(), mapa.get("fechaNacimiento"));
+        assertTrue(mapa.get("direccion") instanceof Map);
+        assertEquals(campos(Direccion.class), ((Map<?, ?>) mapa.get("direccion")).keySet());
+    }
+
+    @Test
+    void aMapaConservaLosCamposNulosParaReemplazarlos() {
+        Persona persona = new Persona("19911121-3", "Julia", "Sim", null, null);
+
+        Map<String, Object> mapa = UtilidadesPersona.aMapa(persona);
+
+        assertEquals(campos(Persona.class), mapa.keySet());
+        assertNull(mapa.get("direccion"));
+        assertNull(mapa.get("fechaNacimiento"));
+    }
+}